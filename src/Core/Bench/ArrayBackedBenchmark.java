@@ -0,0 +1,121 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Bench;
+
+import Core.Utils.ArrayBackedBST;
+import Core.Utils.Cell;
+import Core.Utils.SelfBalancingBST;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compara {@link SelfBalancingBST} (un NodeCell por nodo) con
+ * {@link ArrayBackedBST} (arreglos primitivos paralelos).
+ *
+ * Para cada estructura mide la memoria que ocupa el árbol (sin contar las
+ * celdas, que son las mismas para ambos) y el tiempo de inserción, búsqueda,
+ * recorrido inorden y eliminación. Conviene correrlo con un heap fijo, por
+ * ejemplo -Xms2g -Xmx2g, para que las mediciones de memoria sean estables.
+ *
+ * Uso: java Core.Bench.ArrayBackedBenchmark [cantidadDeCeldas]
+ *
+ * @author Rashid
+ */
+public class ArrayBackedBenchmark {
+
+    public static void main(String[] args) {
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : 1_000_000;
+
+        System.out.println("Generando " + count + " celdas sintéticas...");
+        List<Cell> cells = SyntheticData.cells(count, 42);
+        List<Cell> shuffled = new ArrayList<>(cells);
+        Collections.shuffle(shuffled, new Random(7));
+        double[] probes = new double[count];
+        for (int i = 0; i < count; i++) {
+            probes[i] = shuffled.get(i).FM;
+        }
+
+        System.out.printf("%-18s %12s %10s %12s %12s %12s %12s%n",
+                "Estructura", "Memoria(MB)", "B/nodo", "Insertar(ms)", "Buscar(ms)", "Inorden(ms)", "Eliminar(ms)");
+
+        long base = usedMemory();
+        SelfBalancingBST objects = new SelfBalancingBST();
+        double insertObjects = SyntheticData.timeMillis(() -> {
+            for (Cell cell : shuffled) {
+                objects.insert(cell);
+            }
+        });
+        long objectBytes = usedMemory() - base;
+        double searchObjects = SyntheticData.timeMillis(() -> {
+            for (double fm : probes) {
+                objects.search(fm);
+            }
+        });
+        double traverseObjects = SyntheticData.timeMillis(() -> sum(objects));
+        double deleteObjects = SyntheticData.timeMillis(() -> {
+            for (double fm : probes) {
+                objects.delete(fm);
+            }
+        });
+        print("NodeCell", objectBytes, count, insertObjects, searchObjects, traverseObjects, deleteObjects);
+
+        base = usedMemory();
+        ArrayBackedBST arrays = new ArrayBackedBST();
+        double insertArrays = SyntheticData.timeMillis(() -> {
+            for (Cell cell : shuffled) {
+                arrays.insert(cell);
+            }
+        });
+        long arrayBytes = usedMemory() - base;
+        double searchArrays = SyntheticData.timeMillis(() -> {
+            for (double fm : probes) {
+                arrays.search(fm);
+            }
+        });
+        double traverseArrays = SyntheticData.timeMillis(() -> sum(arrays));
+        double deleteArrays = SyntheticData.timeMillis(() -> {
+            for (double fm : probes) {
+                arrays.delete(fm);
+            }
+        });
+        print("Arreglos", arrayBytes, count, insertArrays, searchArrays, traverseArrays, deleteArrays);
+    }
+
+    private static void print(String name, long bytes, int count,
+            double insert, double search, double traverse, double delete) {
+        System.out.printf("%-18s %12.1f %10.1f %12.1f %12.1f %12.1f %12.1f%n",
+                name, bytes / (1024.0 * 1024.0), (double) bytes / count, insert, search, traverse, delete);
+    }
+
+    /**
+     * Recorre las celdas en orden y suma sus FM para que el JIT no descarte
+     * el recorrido.
+     */
+    private static double sum(Iterable<Cell> tree) {
+        double total = 0;
+        for (Cell cell : tree) {
+            total += cell.FM;
+        }
+        return total;
+    }
+
+    /**
+     * Memoria ocupada del heap tras forzar algunas recolecciones.
+     */
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Bench;
+
+import Core.Utils.Cell;
+import Core.Utils.SelfBalancingBST;
+import java.util.List;
+
+/**
+ * Compara insertar y eliminar un lote celda por celda contra
+ * {@link SelfBalancingBST#addAll} y {@link SelfBalancingBST#removeAll}, con
+ * lotes de distintos tamaños sobre un árbol ya cargado.
+ *
+ * Uso: java Core.Bench.BatchBenchmark [celdasEnElArbol]
+ *
+ * @author Rashid
+ */
+public class BatchBenchmark {
+
+    private static final int[] BATCHES = {1_000, 10_000, 100_000, 500_000};
+
+    public static void main(String[] args) {
+        int base = (args.length > 0) ? Integer.parseInt(args[0]) : 500_000;
+        int largest = BATCHES[BATCHES.length - 1];
+        List<Cell> cells = SyntheticData.cells(base + largest, 42);
+        List<Cell> initial = cells.subList(0, base);
+
+        System.out.printf("%10s %14s %14s %14s %14s%n", "Lote", "insert(ms)", "addAll(ms)", "delete(ms)", "removeAll(ms)");
+        for (int round = 0; round < 2; round++) { // la primera ronda calienta el JIT
+            for (int size : BATCHES) {
+                List<Cell> batch = cells.subList(base, base + size);
+                double[] keys = new double[size];
+                for (int i = 0; i < size; i++) {
+                    keys[i] = batch.get(i).FM;
+                }
+
+                SelfBalancingBST single = new SelfBalancingBST(true);
+                single.buildFrom(initial);
+                SelfBalancingBST batched = new SelfBalancingBST(true);
+                batched.buildFrom(initial);
+
+                System.gc(); // que la basura de una medición no se cobre en la siguiente
+                double insertTime = SyntheticData.timeMillis(() -> {
+                    for (Cell cell : batch) {
+                        single.insert(cell);
+                    }
+                });
+                System.gc();
+                double addAllTime = SyntheticData.timeMillis(() -> batched.addAll(batch));
+                System.gc();
+                double deleteTime = SyntheticData.timeMillis(() -> {
+                    for (double key : keys) {
+                        single.delete(key);
+                    }
+                });
+                System.gc();
+                double removeAllTime = SyntheticData.timeMillis(() -> batched.removeAll(keys));
+                if (round == 1) {
+                    System.out.printf("%10d %14.1f %14.1f %14.1f %14.1f%n",
+                            size, insertTime, addAllTime, deleteTime, removeAllTime);
+                }
+            }
+        }
+    }
+}
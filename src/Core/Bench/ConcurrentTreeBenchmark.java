@@ -0,0 +1,156 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Bench;
+
+import Core.Utils.Cell;
+import Core.Utils.ConcurrentCellTree;
+import Core.Utils.NodeCell;
+import Core.Utils.SelfBalancingBST;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Prueba de contención de {@link ConcurrentCellTree}.
+ *
+ * Varios hilos hacen búsquedas por FM mezcladas con escrituras (eliminar una
+ * celda y volver a insertarla, para que el tamaño no cambie) en distintas
+ * proporciones. Se compara contra el mismo árbol protegido con synchronized,
+ * que serializa también a los lectores.
+ *
+ * Uso: java Core.Bench.ConcurrentTreeBenchmark [cantidadDeCeldas] [segundosPorPrueba]
+ *
+ * @author Rashid
+ */
+public class ConcurrentTreeBenchmark {
+
+    private static final int[] WRITE_PERCENTS = {0, 1, 10, 50};
+
+    /**
+     * Operaciones que se miden, para comparar ambas variantes.
+     */
+    private interface Target {
+
+        Cell search(double FM);
+
+        void rewrite(Cell cell);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : 500_000;
+        double seconds = (args.length > 1) ? Double.parseDouble(args[1]) : 1.0;
+
+        System.out.println("Generando " + count + " celdas sintéticas...");
+        List<Cell> cells = SyntheticData.cells(count, 42);
+        double[] keys = new double[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = cells.get(i).FM;
+        }
+
+        SelfBalancingBST plain = new SelfBalancingBST();
+        plain.buildFrom(cells);
+        Target locked = new Target() {
+            @Override
+            public Cell search(double FM) {
+                synchronized (plain) {
+                    NodeCell node = plain.search(FM);
+                    return (node == null) ? null : node.cell;
+                }
+            }
+
+            @Override
+            public void rewrite(Cell cell) {
+                synchronized (plain) {
+                    plain.delete(cell.FM);
+                    plain.insert(cell);
+                }
+            }
+        };
+
+        SelfBalancingBST wrapped = new SelfBalancingBST();
+        wrapped.buildFrom(cells);
+        ConcurrentCellTree concurrent = new ConcurrentCellTree(wrapped);
+        Target stamped = new Target() {
+            @Override
+            public Cell search(double FM) {
+                return concurrent.search(FM);
+            }
+
+            @Override
+            public void rewrite(Cell cell) {
+                concurrent.delete(cell.FM);
+                concurrent.insert(cell);
+            }
+        };
+
+        System.out.printf("%8s %10s %18s %18s%n", "Hilos", "Escritura", "synchronized(op/s)", "StampedLock(op/s)");
+        for (int threads : threadCounts(Runtime.getRuntime().availableProcessors())) {
+            for (int writePercent : WRITE_PERCENTS) {
+                double baseline = run(locked, cells, keys, threads, writePercent, seconds);
+                double optimistic = run(stamped, cells, keys, threads, writePercent, seconds);
+                System.out.printf("%8d %9d%% %18.0f %18.0f%n", threads, writePercent, baseline, optimistic);
+            }
+        }
+    }
+
+    /**
+     * Potencias de 2 menores a la cantidad de núcleos, más todos los núcleos.
+     */
+    private static List<Integer> threadCounts(int maxThreads) {
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(maxThreads);
+        return counts;
+    }
+
+    /**
+     * Corre la mezcla de operaciones durante el tiempo dado y retorna las
+     * operaciones por segundo de todos los hilos juntos.
+     */
+    private static double run(Target target, List<Cell> cells, double[] keys,
+            int threads, int writePercent, double seconds) throws InterruptedException {
+        LongAdder operations = new LongAdder();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long done = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (running.get()) {
+                    int i = random.nextInt(keys.length);
+                    if (random.nextInt(100) < writePercent) {
+                        target.rewrite(cells.get(i));
+                    } else {
+                        target.search(keys[i]);
+                    }
+                    done++;
+                }
+                operations.add(done);
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        Thread.sleep((long) (seconds * 1000));
+        running.set(false);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double elapsed = (System.nanoTime() - begin) / 1e9;
+        return operations.sum() / elapsed;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Bench;
+
+import Core.Utils.Cell;
+import Core.Utils.DiskBPlusTree;
+import Core.Utils.SelfBalancingBST;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Escribe celdas sintéticas en un árbol B+ en disco y mide la escritura, la
+ * apertura (que no depende de la cantidad de celdas), búsquedas puntuales
+ * contra el AVL en memoria y rangos amplios leídos desde el archivo mapeado.
+ *
+ * Uso: java Core.Bench.DiskBPlusTreeBenchmark [cantidadDeCeldas] [archivo]
+ *
+ * @author Rashid
+ */
+public class DiskBPlusTreeBenchmark {
+
+    private static final int LOOKUPS = 200_000;
+    private static final double[] FRACTIONS = {0.001, 0.01, 0.1, 1.0};
+
+    public static void main(String[] args) throws IOException {
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : 1_000_000;
+        Path file = (args.length > 1) ? Paths.get(args[1]) : Files.createTempFile("celdas", ".bpt");
+
+        System.out.println("Generando " + count + " celdas sintéticas...");
+        SelfBalancingBST avl = new SelfBalancingBST(true);
+        avl.buildFrom(SyntheticData.cells(count, 42));
+        List<Cell> sorted = avl.inOrderAdding();
+
+        double writeTime = SyntheticData.timeMillis(() -> {
+            try {
+                DiskBPlusTree.write(file, avl, true);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        System.out.printf("Escritura: %.1f ms, %.1f MB en %s%n", writeTime, Files.size(file) / 1e6, file);
+
+        long start = System.nanoTime();
+        try (DiskBPlusTree disk = DiskBPlusTree.open(file)) {
+            System.out.printf("Apertura: %.3f ms (%d celdas, altura %d)%n",
+                    (System.nanoTime() - start) / 1e6, disk.size(), disk.getHeight());
+
+            Random random = new Random(7);
+            double[] keys = new double[LOOKUPS];
+            for (int i = 0; i < LOOKUPS; i++) {
+                keys[i] = sorted.get(random.nextInt(sorted.size())).FM;
+            }
+            for (int round = 0; round < 2; round++) { // la primera ronda calienta el JIT y las páginas
+                double avlTime = SyntheticData.timeMillis(() -> {
+                    for (double key : keys) {
+                        avl.search(key);
+                    }
+                });
+                double diskTime = SyntheticData.timeMillis(() -> {
+                    for (double key : keys) {
+                        disk.find(key);
+                    }
+                });
+                System.out.printf("%d búsquedas: AVL %.1f ms, disco %.1f ms%n", LOOKUPS, avlTime, diskTime);
+            }
+
+            System.out.printf("%10s %12s %12s%n", "Fracción", "Celdas", "Disco(ms)");
+            for (double fraction : FRACTIONS) {
+                double from = sorted.get((int) ((1.0 - fraction) * (sorted.size() - 1))).FM;
+                int[] found = new int[1];
+                double time = SyntheticData.timeMillis(
+                        () -> disk.forEachInRange(from, Double.POSITIVE_INFINITY, cell -> found[0]++));
+                System.out.printf("%10.3f %12d %12.2f%n", fraction, found[0], time);
+            }
+        } finally {
+            if (args.length < 2) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Bench;
+
+import Core.Utils.Cell;
+import Core.Utils.OrderedCellIndex;
+import Core.Utils.OrderedCellIndexes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compara las estructuras de {@link OrderedCellIndexes} con las mismas
+ * operaciones: carga masiva, inserciones sueltas, búsquedas, rangos,
+ * recorrido completo y eliminaciones.
+ *
+ * Uso: java Core.Bench.IndexBackendBenchmark [cantidadDeCeldas] [estructuras...]
+ * (sin estructuras se prueban todas).
+ *
+ * @author Rashid
+ */
+public class IndexBackendBenchmark {
+
+    private static final int RANGES = 10_000;
+    private static final double RANGE_WIDTH = 0.001;
+
+    public static void main(String[] args) {
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : 1_000_000;
+        List<String> backends = (args.length > 1)
+                ? Arrays.asList(args).subList(1, args.length)
+                : OrderedCellIndexes.backends();
+
+        System.out.println("Generando " + count + " celdas sintéticas...");
+        List<Cell> cells = SyntheticData.cells(count, 42);
+        List<Cell> shuffled = new ArrayList<>(cells);
+        Collections.shuffle(shuffled, new Random(7));
+        double[] probes = new double[count];
+        for (int i = 0; i < count; i++) {
+            probes[i] = shuffled.get(i).FM;
+        }
+        double[] rangeStarts = new double[RANGES];
+        Random random = new Random(3);
+        for (int i = 0; i < RANGES; i++) {
+            rangeStarts[i] = random.nextDouble() * 4.0 - 2.0;
+        }
+
+        System.out.printf("%-10s %10s %12s %10s %10s %11s %12s%n",
+                "Estructura", "Carga(ms)", "Insertar(ms)", "Buscar(ms)", "Rangos(ms)", "Recorrer(ms)", "Eliminar(ms)");
+        for (String backend : backends) {
+            // Dos pasadas: la primera calienta el JIT y solo se muestra la segunda
+            for (int round = 0; round < 2; round++) {
+                OrderedCellIndex index = OrderedCellIndexes.create(backend, false);
+                double load = SyntheticData.timeMillis(() -> index.buildFrom(cells));
+
+                OrderedCellIndex incremental = OrderedCellIndexes.create(backend, false);
+                double insert = SyntheticData.timeMillis(() -> {
+                    for (Cell cell : shuffled) {
+                        incremental.insert(cell);
+                    }
+                });
+                double search = SyntheticData.timeMillis(() -> {
+                    for (double fm : probes) {
+                        index.find(fm);
+                    }
+                });
+                double ranges = SyntheticData.timeMillis(() -> {
+                    for (double lo : rangeStarts) {
+                        index.rangeQuery(lo, lo + RANGE_WIDTH);
+                    }
+                });
+                double traverse = SyntheticData.timeMillis(() -> sum(index));
+                double delete = SyntheticData.timeMillis(() -> {
+                    for (double fm : probes) {
+                        index.delete(fm);
+                    }
+                });
+                if (round == 1) {
+                    System.out.printf("%-10s %10.1f %12.1f %10.1f %10.1f %11.1f %12.1f%n",
+                            backend, load, insert, search, ranges, traverse, delete);
+                }
+            }
+        }
+    }
+
+    /**
+     * Recorre las celdas en orden y suma sus FM para que el JIT no descarte
+     * el recorrido.
+     */
+    private static double sum(Iterable<Cell> index) {
+        double total = 0;
+        for (Cell cell : index) {
+            total += cell.FM;
+        }
+        return total;
+    }
+}
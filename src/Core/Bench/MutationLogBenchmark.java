@@ -0,0 +1,72 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Bench;
+
+import Core.Utils.Cell;
+import Core.Utils.CellSnapshot;
+import Core.Utils.MutationLog;
+import Core.Utils.SelfBalancingBST;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Mide cuántas inserciones y eliminaciones por segundo soporta el árbol con y
+ * sin el registro de cambios (confirmación en grupo y puntos de control
+ * incluidos). Trabaja en un directorio temporal.
+ *
+ * Uso: java Core.Bench.MutationLogBenchmark [cantidadDeCeldas]
+ *
+ * @author Rashid
+ */
+public class MutationLogBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : 200_000;
+        List<Cell> cells = SyntheticData.cells(count, 42);
+        Path dir = Files.createTempDirectory("wal");
+        String csvPath = dir.resolve("data.csv").toString();
+
+        for (int round = 0; round < 2; round++) { // la primera ronda calienta el JIT
+            double plain = run(new SelfBalancingBST(true), cells);
+
+            SelfBalancingBST logged = new SelfBalancingBST(true);
+            MutationLog log = MutationLog.open(csvPath, logged, null);
+            double withLog = run(logged, cells);
+            double close = SyntheticData.timeMillis(() -> {
+                try {
+                    log.close();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            System.out.printf("%d cambios: sin registro %.0f/s, con registro %.0f/s (cierre %.1f ms)%n",
+                    2 * count, 2 * count / plain * 1000, 2 * count / withLog * 1000, close);
+            Files.deleteIfExists(MutationLog.pathFor(csvPath));
+            Files.deleteIfExists(MutationLog.checkpointPathFor(csvPath));
+        }
+
+        for (Path file : new Path[]{MutationLog.pathFor(csvPath), MutationLog.checkpointPathFor(csvPath),
+            CellSnapshot.pathFor(csvPath)}) {
+            Files.deleteIfExists(file);
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    /**
+     * Inserta todas las celdas y luego las elimina una por una.
+     */
+    private static double run(SelfBalancingBST tree, List<Cell> cells) {
+        return SyntheticData.timeMillis(() -> {
+            for (Cell cell : cells) {
+                tree.insert(cell);
+            }
+            for (Cell cell : cells) {
+                tree.delete(cell.FM, cell.ISO3);
+            }
+        });
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Bench;
+
+import Core.Utils.Cell;
+import Core.Utils.SelfBalancingBST;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Prueba de rendimiento de {@link SelfBalancingBST#parallelStream()}.
+ *
+ * Arma un árbol con celdas sintéticas y ejecuta dos pasadas analíticas
+ * (promedio de cada año y búsqueda por criterio) con distintas cantidades de
+ * hilos, mostrando el tiempo y la aceleración respecto a un solo hilo.
+ *
+ * Uso: java Core.Bench.ParallelStreamBenchmark [cantidadDeCeldas]
+ *
+ * @author Rashid
+ */
+public class ParallelStreamBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : 2_000_000;
+
+        System.out.println("Generando " + count + " celdas sintéticas...");
+        SelfBalancingBST tree = new SelfBalancingBST();
+        tree.buildFrom(SyntheticData.cells(count, 42));
+        System.out.println("Árbol listo: " + tree.size() + " nodos, altura " + tree.getHeight(tree.root));
+
+        double baseYearly = 0;
+        double baseSearch = 0;
+
+        System.out.printf("%8s %14s %9s %14s %9s%n", "Hilos", "Promedios(ms)", "Acel.", "Búsqueda(ms)", "Acel.");
+        for (int threads : threadCounts(Runtime.getRuntime().availableProcessors())) {
+            double yearly = measure(threads, () -> yearlyAverages(tree));
+            double search = measure(threads, () -> (double) searchCount(tree));
+            if (threads == 1) {
+                baseYearly = yearly;
+                baseSearch = search;
+            }
+            System.out.printf("%8d %14.1f %8.2fx %14.1f %8.2fx%n",
+                    threads, yearly, baseYearly / yearly, search, baseSearch / search);
+        }
+    }
+
+    /**
+     * Potencias de 2 menores a la cantidad de núcleos, más todos los núcleos.
+     */
+    private static List<Integer> threadCounts(int maxThreads) {
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(maxThreads);
+        return counts;
+    }
+
+    /**
+     * Ejecuta la tarea dentro de un ForkJoinPool con la cantidad de hilos dada
+     * (el stream paralelo usa el pool desde el que se invoca) y retorna la
+     * mejor de varias rondas, tras una ronda de calentamiento.
+     */
+    private static double measure(int threads, Supplier<Object> task)
+            throws InterruptedException, ExecutionException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.submit(task::get).get(); // calentamiento
+            double best = Double.MAX_VALUE;
+            for (int r = 0; r < ROUNDS; r++) {
+                long start = System.nanoTime();
+                pool.submit(task::get).get();
+                best = Math.min(best, (System.nanoTime() - start) / 1_000_000.0);
+            }
+            return best;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Suma por año en paralelo; cada hilo acumula en su propio arreglo y luego
+     * se combinan.
+     */
+    private static Object yearlyAverages(SelfBalancingBST tree) {
+        double[] sums = tree.parallelStream().collect(
+                () -> new double[SyntheticData.YEARS],
+                (acc, cell) -> {
+                    for (int y = 0; y < SyntheticData.YEARS; y++) {
+                        acc[y] += cell.measurement(y);
+                    }
+                },
+                (a, b) -> {
+                    for (int y = 0; y < SyntheticData.YEARS; y++) {
+                        a[y] += b[y];
+                    }
+                });
+        int n = tree.size();
+        for (int y = 0; y < sums.length; y++) {
+            sums[y] /= n;
+        }
+        return sums;
+    }
+
+    /**
+     * Cuenta las celdas cuyo valor en 2022 supera al de 1961 por más de 1°C.
+     */
+    private static long searchCount(SelfBalancingBST tree) {
+        return tree.parallelStream()
+                .filter((Cell c) -> c.measurement(SyntheticData.YEARS - 1) - c.measurement(0) > 1.0)
+                .count();
+    }
+}
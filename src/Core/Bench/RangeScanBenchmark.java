@@ -0,0 +1,62 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Bench;
+
+import Core.Utils.BPlusTreeCellIndex;
+import Core.Utils.Cell;
+import Core.Utils.OrderedCellIndex;
+import Core.Utils.SelfBalancingBST;
+import java.util.List;
+
+/**
+ * Compara los rangos amplios ("todas las celdas con FM ≥ X") del AVL contra
+ * el árbol B+ con hojas enlazadas, con distintas fracciones del total de
+ * celdas dentro del rango.
+ *
+ * Uso: java Core.Bench.RangeScanBenchmark [cantidadDeCeldas]
+ *
+ * @author Rashid
+ */
+public class RangeScanBenchmark {
+
+    private static final double[] FRACTIONS = {0.001, 0.01, 0.1, 0.5, 1.0};
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : 2_000_000;
+
+        System.out.println("Generando " + count + " celdas sintéticas...");
+        List<Cell> cells = SyntheticData.cells(count, 42);
+        SelfBalancingBST avl = new SelfBalancingBST();
+        avl.buildFrom(cells);
+        BPlusTreeCellIndex bPlus = new BPlusTreeCellIndex();
+        bPlus.buildFrom(cells);
+        List<Cell> sorted = avl.inOrderAdding();
+
+        System.out.printf("%10s %12s %10s %12s %9s%n", "Fracción", "Celdas", "AVL(ms)", "B+(ms)", "Acel.");
+        for (double fraction : FRACTIONS) {
+            int first = (int) ((1.0 - fraction) * (sorted.size() - 1));
+            double from = sorted.get(first).FM;
+            double avlTime = best(avl, from);
+            double bPlusTime = best(bPlus, from);
+            System.out.printf("%10.3f %12d %10.2f %12.2f %8.2fx%n",
+                    fraction, sorted.size() - first, avlTime, bPlusTime, avlTime / bPlusTime);
+        }
+    }
+
+    /**
+     * Mejor tiempo de varias rondas de rangeQuery(from, +infinito), después
+     * de una ronda de calentamiento.
+     */
+    private static double best(OrderedCellIndex index, double from) {
+        index.rangeQuery(from, Double.POSITIVE_INFINITY);
+        double best = Double.MAX_VALUE;
+        for (int r = 0; r < ROUNDS; r++) {
+            best = Math.min(best, SyntheticData.timeMillis(
+                    () -> index.rangeQuery(from, Double.POSITIVE_INFINITY)));
+        }
+        return best;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Bench;
+
+import Core.Utils.Cell;
+import Core.Utils.SelfBalancingBST;
+import java.util.List;
+
+/**
+ * Compara la unión, intersección y diferencia basadas en split/join contra
+ * recorrer un árbol e insertar o eliminar sus celdas una por una en el otro.
+ * Los dos árboles comparten la mitad de sus celdas.
+ *
+ * Uso: java Core.Bench.SetOperationBenchmark [celdasPorArbol]
+ *
+ * @author Rashid
+ */
+public class SetOperationBenchmark {
+
+    public static void main(String[] args) {
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : 500_000;
+        List<Cell> cells = SyntheticData.cells(count + count / 2, 42);
+        List<Cell> first = cells.subList(0, count);
+        List<Cell> second = cells.subList(count / 2, count + count / 2);
+        System.out.println("Hilos disponibles: " + Runtime.getRuntime().availableProcessors());
+
+        System.out.printf("%14s %14s %14s%n", "Operación", "Celda(ms)", "Join(ms)");
+        for (int round = 0; round < 2; round++) { // la primera ronda calienta el JIT
+            for (String operation : new String[]{"unión", "intersección", "diferencia"}) {
+                SelfBalancingBST a = tree(first);
+                SelfBalancingBST b = tree(second);
+                System.gc();
+                double naive = SyntheticData.timeMillis(() -> naive(operation, a, b));
+
+                SelfBalancingBST c = tree(first);
+                SelfBalancingBST d = tree(second);
+                System.gc();
+                double joined = SyntheticData.timeMillis(() -> {
+                    if (operation.equals("unión")) {
+                        c.union(d);
+                    } else if (operation.equals("intersección")) {
+                        c.intersection(d);
+                    } else {
+                        c.difference(d);
+                    }
+                });
+                if (a.size() != c.size()) {
+                    throw new IllegalStateException("Resultados distintos en la " + operation);
+                }
+                if (round == 1) {
+                    System.out.printf("%14s %14.1f %14.1f%n", operation, naive, joined);
+                }
+            }
+        }
+    }
+
+    private static SelfBalancingBST tree(List<Cell> cells) {
+        SelfBalancingBST tree = new SelfBalancingBST(true);
+        tree.buildFrom(cells);
+        return tree;
+    }
+
+    /**
+     * La forma de siempre: recorrer b y modificar a celda por celda.
+     */
+    private static void naive(String operation, SelfBalancingBST a, SelfBalancingBST b) {
+        if (operation.equals("unión")) {
+            for (Cell cell : b) {
+                a.insert(cell);
+            }
+        } else if (operation.equals("diferencia")) {
+            for (Cell cell : b) {
+                a.delete(cell.FM, cell.ISO3);
+            }
+        } else {
+            for (Cell cell : a.inOrderAdding()) {
+                if (b.search(cell.FM, cell.ISO3) == null) {
+                    a.delete(cell.FM, cell.ISO3);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Bench;
+
+import Core.Utils.Cell;
+import Core.Utils.MeasurementStore;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Generador de datos sintéticos para las pruebas de rendimiento. Produce
+ * celdas con la misma forma que las del CSV (62 años, valores entre -2 y 2)
+ * pero en la cantidad que se necesite.
+ *
+ * @author Rashid
+ */
+public final class SyntheticData {
+
+    public static final int YEARS = 62;  // 1961-2022, igual que el dataset real
+
+    private SyntheticData() {
+    }
+
+    /**
+     * Crea celdas con mediciones aleatorias y FM calculado como en
+     * {@link Core.Utils.CSVReaderUtil}. Con la misma semilla siempre se
+     * obtienen los mismos datos. Las mediciones quedan en un
+     * {@link MeasurementStore} compartido, igual que al leer el CSV.
+     *
+     * @param count cantidad de celdas
+     * @param seed semilla del generador
+     * @return lista de celdas sintéticas
+     */
+    public static ArrayList<Cell> cells(int count, long seed) {
+        Random random = new Random(seed);
+        ArrayList<Cell> cells = new ArrayList<>(count);
+        MeasurementStore store = new MeasurementStore(YEARS, count);
+        double[] F_i = new double[YEARS];
+        for (int i = 0; i < count; i++) {
+            Cell cell = new Cell(i + 1, "Country " + i, iso3(i), 0);
+            for (int y = 0; y < YEARS; y++) {
+                F_i[y] = Math.round((random.nextDouble() * 4.0 - 2.0) * 1000.0) / 1000.0;
+            }
+            cell.row = store.addRow(F_i, YEARS);
+            cell.store = store;
+            // Un pequeño desplazamiento único evita FM repetidos en conjuntos grandes
+            cell.FM = cell.averageTemperature() + i * 1e-12;
+            cells.add(cell);
+        }
+        return cells;
+    }
+
+    /**
+     * Código de tres letras derivado del índice (AAA, AAB, ...).
+     */
+    public static String iso3(int index) {
+        char[] code = new char[3];
+        for (int i = 2; i >= 0; i--) {
+            code[i] = (char) ('A' + index % 26);
+            index /= 26;
+        }
+        return new String(code);
+    }
+
+    /**
+     * Mide el tiempo de una tarea en milisegundos.
+     */
+    public static double timeMillis(Runnable task) {
+        long start = System.nanoTime();
+        task.run();
+        return (System.nanoTime() - start) / 1_000_000.0;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Utils;
+
+/**
+ * Árbol AVL que además guarda en cada nodo un resumen asociativo de su
+ * subárbol, definido por un {@link CellMonoid}.
+ *
+ * El resumen se recalcula en el mismo punto donde el AVL actualiza altura y
+ * tamaño (inserción, eliminación, rotaciones y carga masiva), así que siempre
+ * está al día. Con él se obtiene el resumen de cualquier rango de FM en
+ * O(log n), sin recorrer los nodos del rango.
+ *
+ * Ejemplo de uso:
+ *   AggregateBST&lt;CellStats&gt; arbol = new AggregateBST&lt;&gt;(CellStats.FM_MONOID);
+ *   double promedio = arbol.aggregate(0.5, 1.5).average();
+ *
+ * @param <S> tipo del resumen guardado en los nodos
+ * @author Rashid
+ */
+public class AggregateBST<S> extends SelfBalancingBST {
+
+    private final CellMonoid<S> monoid;
+
+    public AggregateBST(CellMonoid<S> monoid) {
+        this(monoid, false);
+    }
+
+    /**
+     * @param monoid resumen que se guarda en cada nodo
+     * @param compositeKey true para ordenar por (FM, ISO3) y conservar FM
+     * repetidos (ver {@link SelfBalancingBST#SelfBalancingBST(boolean)})
+     */
+    public AggregateBST(CellMonoid<S> monoid, boolean compositeKey) {
+        super(compositeKey);
+        this.monoid = monoid;
+    }
+
+    /**
+     * Además de altura y tamaño, recalcula el resumen del nodo combinando en
+     * orden: subárbol izquierdo, celda del nodo y subárbol derecho.
+     */
+    @Override
+    protected void update(NodeCell node) {
+        super.update(node);
+        node.summary = monoid.combine(
+                monoid.combine(summaryOf(node.left), monoid.lift(node.cell)),
+                summaryOf(node.right));
+    }
+
+    /**
+     * Los nodos de otro árbol solo sirven si sus resúmenes usan el mismo
+     * monoide.
+     */
+    @Override
+    protected boolean isCompatible(SelfBalancingBST other) {
+        return super.isCompatible(other) && ((AggregateBST<?>) other).monoid == monoid;
+    }
+
+    @Override
+    protected SelfBalancingBST emptyCopy() {
+        return new AggregateBST<>(monoid, isCompositeKey());
+    }
+
+    @SuppressWarnings("unchecked")
+    private S summaryOf(NodeCell node) {
+        return (node == null) ? monoid.identity() : (S) node.summary;
+    }
+
+    /**
+     * Resumen de todas las celdas del árbol en O(1).
+     */
+    public S aggregateAll() {
+        return summaryOf(root);
+    }
+
+    /**
+     * Resumen de las celdas con FM dentro del intervalo cerrado [lo, hi] en
+     * O(log n).
+     */
+    public S aggregate(double lo, double hi) {
+        if (lo > hi) {
+            return monoid.identity();
+        }
+        return aggregate(root, lo, hi);
+    }
+
+    /**
+     * Baja hasta el primer nodo dentro del rango; desde ahí el rango se divide
+     * en "todo lo mayor o igual a lo" a la izquierda y "todo lo menor o igual a
+     * hi" a la derecha.
+     */
+    private S aggregate(NodeCell node, double lo, double hi) {
+        while (node != null) {
+            if (node.cell.FM < lo) {
+                node = node.right;
+            } else if (node.cell.FM > hi) {
+                node = node.left;
+            } else {
+                S left = aggregateFrom(node.left, lo);
+                S right = aggregateUpTo(node.right, hi);
+                return monoid.combine(monoid.combine(left, monoid.lift(node.cell)), right);
+            }
+        }
+        return monoid.identity();
+    }
+
+    /**
+     * Resumen de las celdas del subárbol con FM mayor o igual a lo.
+     */
+    private S aggregateFrom(NodeCell node, double lo) {
+        if (node == null) {
+            return monoid.identity();
+        }
+        if (node.cell.FM < lo) {
+            return aggregateFrom(node.right, lo);
+        }
+        S left = aggregateFrom(node.left, lo);
+        return monoid.combine(monoid.combine(left, monoid.lift(node.cell)), summaryOf(node.right));
+    }
+
+    /**
+     * Resumen de las celdas del subárbol con FM menor o igual a hi.
+     */
+    private S aggregateUpTo(NodeCell node, double hi) {
+        if (node == null) {
+            return monoid.identity();
+        }
+        if (node.cell.FM > hi) {
+            return aggregateUpTo(node.left, hi);
+        }
+        S right = aggregateUpTo(node.right, hi);
+        return monoid.combine(monoid.combine(summaryOf(node.left), monoid.lift(node.cell)), right);
+    }
+}
@@ -0,0 +1,372 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Árbol AVL ordenado por FM que guarda sus nodos en arreglos primitivos
+ * paralelos en lugar de un objeto {@link NodeCell} por nodo.
+ *
+ * Cada nodo es una posición (slot) de los arreglos: la clave FM está en
+ * {@code keys}, los hijos en {@code left}/{@code right} como índices (-1 =
+ * sin hijo), la altura en {@code height} y la celda en {@code cells}. Los
+ * slots liberados por eliminaciones se encadenan en una lista libre (usando
+ * {@code left} como enlace) y se reutilizan en las siguientes inserciones.
+ *
+ * Así se evita el encabezado de un objeto por nodo y las comparaciones leen
+ * claves contiguas en un double[] sin saltar a cada Cell. Ofrece las mismas
+ * operaciones básicas que {@link SelfBalancingBST} en su modo de clave simple
+ * (los FM repetidos se descartan).
+ *
+ * @author Rashid
+ */
+public class ArrayBackedBST implements Iterable<Cell> {
+
+    private static final int NIL = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private double[] keys;
+    private int[] left;
+    private int[] right;
+    private byte[] height;  // altura del subárbol (hoja = 1); un AVL de 2^31 nodos no pasa de 45
+    private Cell[] cells;
+
+    private int root = NIL;
+    private int size = 0;
+    private int used = 0;           // slots usados alguna vez (el resto nunca se asignó)
+    private int freeHead = NIL;     // primer slot libre reutilizable
+    private int modCount = 0;
+
+    public ArrayBackedBST() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param capacity cantidad de nodos para la que se reserva espacio inicial
+     */
+    public ArrayBackedBST(int capacity) {
+        capacity = Math.max(1, capacity);
+        keys = new double[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        height = new byte[capacity];
+        cells = new Cell[capacity];
+    }
+
+    // ==================== SLOTS ====================
+    private int allocate(Cell cell) {
+        int slot;
+        if (freeHead != NIL) {
+            slot = freeHead;
+            freeHead = left[slot];
+        } else {
+            if (used == keys.length) {
+                grow();
+            }
+            slot = used++;
+        }
+        keys[slot] = cell.FM;
+        cells[slot] = cell;
+        left[slot] = NIL;
+        right[slot] = NIL;
+        height[slot] = 1;
+        return slot;
+    }
+
+    private void release(int slot) {
+        cells[slot] = null; // no retener la celda eliminada
+        left[slot] = freeHead;
+        freeHead = slot;
+    }
+
+    private void grow() {
+        int capacity = keys.length + (keys.length >> 1) + 1;
+        keys = Arrays.copyOf(keys, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        height = Arrays.copyOf(height, capacity);
+        cells = Arrays.copyOf(cells, capacity);
+    }
+
+    // ==================== UTILIDADES DE BALANCE ====================
+    private int heightOf(int node) {
+        return (node == NIL) ? 0 : height[node];
+    }
+
+    private int balanceOf(int node) {
+        return heightOf(left[node]) - heightOf(right[node]);
+    }
+
+    private void update(int node) {
+        height[node] = (byte) (1 + Math.max(heightOf(left[node]), heightOf(right[node])));
+    }
+
+    private int rotateLeft(int node) {
+        int aux = right[node];
+        right[node] = left[aux];
+        left[aux] = node;
+        update(node);
+        update(aux);
+        return aux;
+    }
+
+    private int rotateRight(int node) {
+        int aux = left[node];
+        left[node] = right[aux];
+        right[aux] = node;
+        update(node);
+        update(aux);
+        return aux;
+    }
+
+    private int rebalance(int node) {
+        update(node);
+        int balance = balanceOf(node);
+        if (balance > 1) {
+            if (balanceOf(left[node]) < 0) {
+                left[node] = rotateLeft(left[node]); // Left-Right
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (balanceOf(right[node]) > 0) {
+                right[node] = rotateRight(right[node]); // Right-Left
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    // ==================== INSERCIÓN ====================
+    /**
+     * Inserta una celda. Si el FM ya existe, se ignora la inserción.
+     */
+    public void addNode(Cell cell) {
+        insert(cell);
+    }
+
+    /**
+     * Inserta una celda y avisa si realmente se agregó.
+     *
+     * @return true si se insertó, false si el FM ya existía
+     */
+    public boolean insert(Cell cell) {
+        int before = size;
+        root = insert(root, cell);
+        modCount++;
+        return size > before;
+    }
+
+    private int insert(int node, Cell cell) {
+        if (node == NIL) {
+            size++;
+            return allocate(cell);
+        }
+        double key = cell.FM;
+        if (key < keys[node]) {
+            int child = insert(left[node], cell);
+            left[node] = child;
+        } else if (key > keys[node]) {
+            int child = insert(right[node], cell);
+            right[node] = child;
+        } else {
+            return node; // clave duplicada → no insertamos
+        }
+        return rebalance(node);
+    }
+
+    // ==================== ELIMINACIÓN ====================
+    /**
+     * Elimina un nodo por clave (FM). Si no existe, muestra mensaje de error.
+     */
+    public void deleteNode(double FM) {
+        if (!delete(FM)) {
+            System.out.println("El dato no existe");
+        }
+    }
+
+    /**
+     * Elimina la celda con el FM dado.
+     *
+     * @return true si se eliminó, false si no existía
+     */
+    public boolean delete(double FM) {
+        int before = size;
+        root = delete(root, FM);
+        if (size == before) {
+            return false;
+        }
+        modCount++;
+        return true;
+    }
+
+    private int delete(int node, double key) {
+        if (node == NIL) {
+            return NIL;
+        }
+        if (key < keys[node]) {
+            int child = delete(left[node], key);
+            left[node] = child;
+        } else if (key > keys[node]) {
+            int child = delete(right[node], key);
+            right[node] = child;
+        } else if (left[node] == NIL || right[node] == NIL) {
+            int child = (left[node] != NIL) ? left[node] : right[node];
+            release(node);
+            size--;
+            return child;
+        } else {
+            // Dos hijos: se copia el sucesor y se elimina del subárbol derecho
+            int successor = right[node];
+            while (left[successor] != NIL) {
+                successor = left[successor];
+            }
+            keys[node] = keys[successor];
+            cells[node] = cells[successor];
+            int child = delete(right[node], keys[successor]);
+            right[node] = child;
+        }
+        return rebalance(node);
+    }
+
+    // ==================== BÚSQUEDA ====================
+    /**
+     * Busca la celda con el FM dado.
+     *
+     * @return la celda, o null si no existe
+     */
+    public Cell search(double FM) {
+        int node = root;
+        while (node != NIL) {
+            double key = keys[node];
+            if (FM < key) {
+                node = left[node];
+            } else if (FM > key) {
+                node = right[node];
+            } else {
+                return cells[node];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Celdas con FM dentro del intervalo cerrado [lo, hi], ordenadas por FM.
+     */
+    public List<Cell> rangeQuery(double lo, double hi) {
+        List<Cell> result = new ArrayList<>();
+        collectRange(root, lo, hi, result);
+        return result;
+    }
+
+    private void collectRange(int node, double lo, double hi, List<Cell> result) {
+        if (node == NIL) {
+            return;
+        }
+        double key = keys[node];
+        if (key >= lo) {
+            collectRange(left[node], lo, hi, result);
+        }
+        if (key >= lo && key <= hi) {
+            result.add(cells[node]);
+        }
+        if (key <= hi) {
+            collectRange(right[node], lo, hi, result);
+        }
+    }
+
+    // ==================== CONSULTAS GENERALES ====================
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Altura del árbol (vacío = 0, un solo nodo = 1).
+     */
+    public int getHeight() {
+        return heightOf(root);
+    }
+
+    // ==================== RECORRIDOS ====================
+    /**
+     * Retorna una lista de celdas ordenadas por FM (inorden).
+     */
+    public List<Cell> inOrderAdding() {
+        List<Cell> result = new ArrayList<>(size);
+        for (Cell cell : this) {
+            result.add(cell);
+        }
+        return result;
+    }
+
+    /**
+     * Retorna las celdas por niveles, de la raíz hacia abajo.
+     */
+    public List<Cell> levelOrderAdding() {
+        List<Cell> result = new ArrayList<>(size);
+        if (root == NIL) {
+            return result;
+        }
+        int[] queue = new int[size];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = root;
+        while (head < tail) {
+            int node = queue[head++];
+            result.add(cells[node]);
+            if (left[node] != NIL) {
+                queue[tail++] = left[node];
+            }
+            if (right[node] != NIL) {
+                queue[tail++] = right[node];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Iterador inorden con una pila de índices de tamaño O(altura).
+     */
+    @Override
+    public Iterator<Cell> iterator() {
+        return new Iterator<Cell>() {
+            private final int[] stack = new int[Math.max(1, getHeight())];
+            private final int expectedModCount = modCount;
+            private int top = pushLeftPath(root, 0);
+
+            private int pushLeftPath(int node, int at) {
+                while (node != NIL) {
+                    stack[at++] = node;
+                    node = left[node];
+                }
+                return at;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return top > 0;
+            }
+
+            @Override
+            public Cell next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (top == 0) {
+                    throw new NoSuchElementException();
+                }
+                int node = stack[--top];
+                top = pushLeftPath(right[node], top);
+                return cells[node];
+            }
+        };
+    }
+}
@@ -0,0 +1,641 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Índice ordenado sobre un árbol B+ en memoria.
+ *
+ * Cada nodo guarda hasta {@code order} claves en un double[] contiguo (el FM),
+ * así que una búsqueda binaria dentro del nodo lee memoria consecutiva y el
+ * árbol tiene muy pocos niveles. Las celdas solo están en las hojas, que
+ * están enlazadas entre sí: un recorrido o un rango se resuelve bajando una
+ * vez hasta la primera hoja y luego leyendo hojas consecutivas, sin volver a
+ * subir por el árbol.
+ *
+ * En modo de clave compuesta los empates de FM se resuelven con el ISO3 de la
+ * celda guardada junto a cada clave; la comparación primitiva por FM sigue
+ * siendo el camino rápido. Las semánticas de inserción, eliminación y
+ * búsqueda son las de {@link SelfBalancingBST}.
+ *
+ * @author Rashid
+ */
+public class BPlusTreeCellIndex implements OrderedCellIndex {
+
+    public static final int DEFAULT_ORDER = 64;
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 13;
+
+    /**
+     * Nodo base: claves (FM) ordenadas y su cantidad.
+     */
+    private abstract static class Node {
+
+        final double[] keys;
+        int count;
+
+        Node(int capacity) {
+            keys = new double[capacity];
+        }
+    }
+
+    /**
+     * Hoja: cada clave con su celda, y enlaces a las hojas vecinas.
+     */
+    private static final class Leaf extends Node {
+
+        final Cell[] cells;
+        Leaf next;
+        Leaf prev;
+
+        Leaf(int capacity) {
+            super(capacity);
+            cells = new Cell[capacity];
+        }
+    }
+
+    /**
+     * Nodo interno: el separador i es la menor clave del hijo i + 1 (al
+     * momento de crearse); el hijo i tiene las claves menores al separador i.
+     */
+    private static final class Inner extends Node {
+
+        final Cell[] separators;
+        final Node[] children;
+
+        Inner(int capacity) {
+            super(capacity);
+            separators = new Cell[capacity];
+            children = new Node[capacity + 1];
+        }
+    }
+
+    /**
+     * Resultado de dividir un nodo: el separador que sube y el nodo nuevo.
+     */
+    private static final class Split {
+
+        final Cell separator;
+        final Node right;
+
+        Split(Cell separator, Node right) {
+            this.separator = separator;
+            this.right = right;
+        }
+    }
+
+    private final boolean compositeKey;
+    private final int maxKeys;
+    private final int minKeys;
+    private final int capacity; // una posición extra para insertar antes de dividir
+    private Node root;
+    private Leaf head;          // hoja de más a la izquierda
+    private int size;
+    private int modCount;
+
+    public BPlusTreeCellIndex() {
+        this(false);
+    }
+
+    /**
+     * @param compositeKey true para usar la clave (FM, ISO3)
+     */
+    public BPlusTreeCellIndex(boolean compositeKey) {
+        this(compositeKey, DEFAULT_ORDER);
+    }
+
+    /**
+     * @param compositeKey true para usar la clave (FM, ISO3)
+     * @param order máxima cantidad de claves por nodo (al menos 4)
+     */
+    public BPlusTreeCellIndex(boolean compositeKey, int order) {
+        if (order < 4) {
+            throw new IllegalArgumentException("El orden debe ser al menos 4: " + order);
+        }
+        this.compositeKey = compositeKey;
+        this.maxKeys = order;
+        this.minKeys = order / 2;
+        this.capacity = order + 1;
+        clear();
+    }
+
+    private void clear() {
+        head = new Leaf(capacity);
+        root = head;
+        size = 0;
+        modCount++;
+    }
+
+    // ==================== COMPARACIÓN ====================
+    /**
+     * Compara la clave (FM, ISO3) con la clave guardada (key, cell). Primero
+     * por el FM primitivo; la celda solo se mira ante empates en modo
+     * compuesto.
+     */
+    private int compare(double FM, String ISO3, double key, Cell cell) {
+        if (FM < key) {
+            return -1;
+        }
+        if (FM > key) {
+            return 1;
+        }
+        return compositeKey ? CellKeyOrder.compare(FM, ISO3, cell, true) : 0;
+    }
+
+    /**
+     * Primera posición de la hoja cuya clave es mayor o igual a (FM, ISO3).
+     */
+    private int lowerBound(Leaf leaf, double FM, String ISO3) {
+        int lo = 0;
+        int hi = leaf.count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(FM, ISO3, leaf.keys[mid], leaf.cells[mid]) > 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Hijo por el que sigue la clave: cantidad de separadores menores o
+     * iguales a ella.
+     */
+    private int childIndex(Inner inner, double FM, String ISO3) {
+        int lo = 0;
+        int hi = inner.count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(FM, ISO3, inner.keys[mid], inner.separators[mid]) >= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Hoja donde está (o estaría) la clave dada.
+     */
+    private Leaf findLeaf(double FM, String ISO3) {
+        Node node = root;
+        while (node instanceof Inner) {
+            Inner inner = (Inner) node;
+            node = inner.children[childIndex(inner, FM, ISO3)];
+        }
+        return (Leaf) node;
+    }
+
+    // ==================== BÚSQUEDA ====================
+    /**
+     * Celda con el FM dado (en modo compuesto, la de menor ISO3), o null.
+     */
+    @Override
+    public Cell find(double FM) {
+        // (FM, null) es la menor clave posible con ese FM
+        Leaf leaf = findLeaf(FM, null);
+        int pos = lowerBound(leaf, FM, null);
+        if (pos == leaf.count) {
+            leaf = leaf.next;
+            pos = 0;
+        }
+        return (leaf != null && leaf.keys[pos] == FM) ? leaf.cells[pos] : null;
+    }
+
+    /**
+     * Celda con el FM e ISO3 dados, o null.
+     */
+    @Override
+    public Cell find(double FM, String ISO3) {
+        Leaf leaf = findLeaf(FM, ISO3);
+        int pos = lowerBound(leaf, FM, ISO3);
+        if (pos < leaf.count && compare(FM, ISO3, leaf.keys[pos], leaf.cells[pos]) == 0
+                && Objects.equals(ISO3, leaf.cells[pos].ISO3)) {
+            return leaf.cells[pos];
+        }
+        return null;
+    }
+
+    /**
+     * Celdas con FM dentro del intervalo cerrado [lo, hi], ordenadas. Baja una
+     * sola vez hasta la primera hoja y sigue por los enlaces.
+     */
+    @Override
+    public List<Cell> rangeQuery(double lo, double hi) {
+        List<Cell> result = new ArrayList<>();
+        Leaf leaf = findLeaf(lo, null);
+        int pos = lowerBound(leaf, lo, null);
+        while (leaf != null) {
+            double[] keys = leaf.keys;
+            Cell[] cells = leaf.cells;
+            for (int i = pos; i < leaf.count; i++) {
+                if (keys[i] > hi) {
+                    return result;
+                }
+                result.add(cells[i]);
+            }
+            leaf = leaf.next;
+            pos = 0;
+        }
+        return result;
+    }
+
+    // ==================== INSERCIÓN ====================
+    @Override
+    public boolean insert(Cell cell) {
+        int before = size;
+        Split split = insert(root, cell);
+        if (split != null) {
+            // La raíz se dividió: el árbol crece un nivel
+            Inner newRoot = new Inner(capacity);
+            newRoot.keys[0] = split.separator.FM;
+            newRoot.separators[0] = split.separator;
+            newRoot.children[0] = root;
+            newRoot.children[1] = split.right;
+            newRoot.count = 1;
+            root = newRoot;
+        }
+        if (size == before) {
+            return false;
+        }
+        modCount++;
+        return true;
+    }
+
+    private Split insert(Node node, Cell cell) {
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            int pos = lowerBound(leaf, cell.FM, cell.ISO3);
+            if (pos < leaf.count && compare(cell.FM, cell.ISO3, leaf.keys[pos], leaf.cells[pos]) == 0) {
+                return null; // clave duplicada → no insertamos
+            }
+            System.arraycopy(leaf.keys, pos, leaf.keys, pos + 1, leaf.count - pos);
+            System.arraycopy(leaf.cells, pos, leaf.cells, pos + 1, leaf.count - pos);
+            leaf.keys[pos] = cell.FM;
+            leaf.cells[pos] = cell;
+            leaf.count++;
+            size++;
+            return (leaf.count > maxKeys) ? splitLeaf(leaf) : null;
+        }
+        Inner inner = (Inner) node;
+        int i = childIndex(inner, cell.FM, cell.ISO3);
+        Split split = insert(inner.children[i], cell);
+        if (split == null) {
+            return null;
+        }
+        System.arraycopy(inner.keys, i, inner.keys, i + 1, inner.count - i);
+        System.arraycopy(inner.separators, i, inner.separators, i + 1, inner.count - i);
+        System.arraycopy(inner.children, i + 1, inner.children, i + 2, inner.count - i);
+        inner.keys[i] = split.separator.FM;
+        inner.separators[i] = split.separator;
+        inner.children[i + 1] = split.right;
+        inner.count++;
+        return (inner.count > maxKeys) ? splitInner(inner) : null;
+    }
+
+    private Split splitLeaf(Leaf leaf) {
+        int mid = leaf.count / 2;
+        Leaf right = new Leaf(capacity);
+        right.count = leaf.count - mid;
+        System.arraycopy(leaf.keys, mid, right.keys, 0, right.count);
+        System.arraycopy(leaf.cells, mid, right.cells, 0, right.count);
+        Arrays.fill(leaf.cells, mid, leaf.count, null);
+        leaf.count = mid;
+
+        right.next = leaf.next;
+        if (right.next != null) {
+            right.next.prev = right;
+        }
+        right.prev = leaf;
+        leaf.next = right;
+        return new Split(right.cells[0], right);
+    }
+
+    private Split splitInner(Inner inner) {
+        int mid = inner.count / 2;
+        Cell up = inner.separators[mid]; // sube al padre, no queda en ninguno de los dos
+        Inner right = new Inner(capacity);
+        right.count = inner.count - mid - 1;
+        System.arraycopy(inner.keys, mid + 1, right.keys, 0, right.count);
+        System.arraycopy(inner.separators, mid + 1, right.separators, 0, right.count);
+        System.arraycopy(inner.children, mid + 1, right.children, 0, right.count + 1);
+        Arrays.fill(inner.separators, mid, inner.count, null);
+        Arrays.fill(inner.children, mid + 1, inner.count + 1, null);
+        inner.count = mid;
+        return new Split(up, right);
+    }
+
+    // ==================== ELIMINACIÓN ====================
+    @Override
+    public boolean delete(double FM) {
+        Cell found = find(FM);
+        return found != null && delete(found.FM, found.ISO3);
+    }
+
+    @Override
+    public boolean delete(double FM, String ISO3) {
+        if (find(FM, ISO3) == null) {
+            return false;
+        }
+        delete(root, FM, ISO3);
+        if (root instanceof Inner && root.count == 0) {
+            root = ((Inner) root).children[0]; // la raíz quedó con un solo hijo
+        }
+        size--;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Elimina una clave que existe en el subárbol y repara los hijos que
+     * quedaron con menos de la mitad de claves.
+     */
+    private void delete(Node node, double FM, String ISO3) {
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            int pos = lowerBound(leaf, FM, ISO3);
+            System.arraycopy(leaf.keys, pos + 1, leaf.keys, pos, leaf.count - pos - 1);
+            System.arraycopy(leaf.cells, pos + 1, leaf.cells, pos, leaf.count - pos - 1);
+            leaf.count--;
+            leaf.cells[leaf.count] = null;
+            return;
+        }
+        Inner inner = (Inner) node;
+        int i = childIndex(inner, FM, ISO3);
+        Node child = inner.children[i];
+        delete(child, FM, ISO3);
+        if (child.count < minKeys) {
+            fixUnderflow(inner, i);
+        }
+    }
+
+    /**
+     * Repara el hijo i: pide una clave prestada a un hermano que tenga de
+     * sobra o, si ninguno tiene, lo fusiona con un hermano.
+     */
+    private void fixUnderflow(Inner parent, int i) {
+        Node left = (i > 0) ? parent.children[i - 1] : null;
+        Node right = (i < parent.count) ? parent.children[i + 1] : null;
+        if (left != null && left.count > minKeys) {
+            borrowFromLeft(parent, i);
+        } else if (right != null && right.count > minKeys) {
+            borrowFromRight(parent, i);
+        } else if (left != null) {
+            merge(parent, i - 1);
+        } else {
+            merge(parent, i);
+        }
+    }
+
+    private void borrowFromLeft(Inner parent, int i) {
+        Node child = parent.children[i];
+        Node left = parent.children[i - 1];
+        if (child instanceof Leaf) {
+            Leaf c = (Leaf) child;
+            Leaf l = (Leaf) left;
+            System.arraycopy(c.keys, 0, c.keys, 1, c.count);
+            System.arraycopy(c.cells, 0, c.cells, 1, c.count);
+            l.count--;
+            c.keys[0] = l.keys[l.count];
+            c.cells[0] = l.cells[l.count];
+            l.cells[l.count] = null;
+            c.count++;
+            parent.keys[i - 1] = c.keys[0];
+            parent.separators[i - 1] = c.cells[0];
+        } else {
+            Inner c = (Inner) child;
+            Inner l = (Inner) left;
+            System.arraycopy(c.keys, 0, c.keys, 1, c.count);
+            System.arraycopy(c.separators, 0, c.separators, 1, c.count);
+            System.arraycopy(c.children, 0, c.children, 1, c.count + 1);
+            // El separador del padre baja al hijo y el último del hermano sube
+            c.keys[0] = parent.keys[i - 1];
+            c.separators[0] = parent.separators[i - 1];
+            c.children[0] = l.children[l.count];
+            c.count++;
+            parent.keys[i - 1] = l.keys[l.count - 1];
+            parent.separators[i - 1] = l.separators[l.count - 1];
+            l.children[l.count] = null;
+            l.separators[l.count - 1] = null;
+            l.count--;
+        }
+    }
+
+    private void borrowFromRight(Inner parent, int i) {
+        Node child = parent.children[i];
+        Node right = parent.children[i + 1];
+        if (child instanceof Leaf) {
+            Leaf c = (Leaf) child;
+            Leaf r = (Leaf) right;
+            c.keys[c.count] = r.keys[0];
+            c.cells[c.count] = r.cells[0];
+            c.count++;
+            r.count--;
+            System.arraycopy(r.keys, 1, r.keys, 0, r.count);
+            System.arraycopy(r.cells, 1, r.cells, 0, r.count);
+            r.cells[r.count] = null;
+            parent.keys[i] = r.keys[0];
+            parent.separators[i] = r.cells[0];
+        } else {
+            Inner c = (Inner) child;
+            Inner r = (Inner) right;
+            // El separador del padre baja al hijo y el primero del hermano sube
+            c.keys[c.count] = parent.keys[i];
+            c.separators[c.count] = parent.separators[i];
+            c.children[c.count + 1] = r.children[0];
+            c.count++;
+            parent.keys[i] = r.keys[0];
+            parent.separators[i] = r.separators[0];
+            System.arraycopy(r.keys, 1, r.keys, 0, r.count - 1);
+            System.arraycopy(r.separators, 1, r.separators, 0, r.count - 1);
+            System.arraycopy(r.children, 1, r.children, 0, r.count);
+            r.separators[r.count - 1] = null;
+            r.children[r.count] = null;
+            r.count--;
+        }
+    }
+
+    /**
+     * Fusiona el hijo j + 1 dentro del hijo j y quita el separador j del
+     * padre.
+     */
+    private void merge(Inner parent, int j) {
+        Node left = parent.children[j];
+        Node right = parent.children[j + 1];
+        if (left instanceof Leaf) {
+            Leaf l = (Leaf) left;
+            Leaf r = (Leaf) right;
+            System.arraycopy(r.keys, 0, l.keys, l.count, r.count);
+            System.arraycopy(r.cells, 0, l.cells, l.count, r.count);
+            l.count += r.count;
+            l.next = r.next;
+            if (l.next != null) {
+                l.next.prev = l;
+            }
+        } else {
+            Inner l = (Inner) left;
+            Inner r = (Inner) right;
+            l.keys[l.count] = parent.keys[j];
+            l.separators[l.count] = parent.separators[j];
+            System.arraycopy(r.keys, 0, l.keys, l.count + 1, r.count);
+            System.arraycopy(r.separators, 0, l.separators, l.count + 1, r.count);
+            System.arraycopy(r.children, 0, l.children, l.count + 1, r.count + 1);
+            l.count += 1 + r.count;
+        }
+        System.arraycopy(parent.keys, j + 1, parent.keys, j, parent.count - j - 1);
+        System.arraycopy(parent.separators, j + 1, parent.separators, j, parent.count - j - 1);
+        System.arraycopy(parent.children, j + 2, parent.children, j + 1, parent.count - j - 1);
+        parent.count--;
+        parent.separators[parent.count] = null;
+        parent.children[parent.count + 1] = null;
+    }
+
+    // ==================== CONSTRUCCIÓN MASIVA ====================
+    /**
+     * Reemplaza el contenido armando el árbol de abajo hacia arriba: ordena
+     * las celdas, descarta las claves repetidas (queda la primera) y reparte
+     * las celdas en hojas casi llenas de forma pareja. O(n log n) por el
+     * ordenamiento y O(n) el armado.
+     */
+    @Override
+    public void buildFrom(Collection<Cell> cells) {
+        Cell[] sorted = cells.toArray(new Cell[0]);
+        Comparator<Cell> byKey = CellKeyOrder.comparator(compositeKey);
+        if (sorted.length >= PARALLEL_SORT_THRESHOLD) {
+            Arrays.parallelSort(sorted, byKey); // estable: ante claves iguales queda la primera
+        } else {
+            Arrays.sort(sorted, byKey);
+        }
+        int n = 0;
+        for (Cell cell : sorted) {
+            if (n == 0 || byKey.compare(cell, sorted[n - 1]) != 0) {
+                sorted[n++] = cell;
+            }
+        }
+
+        clear();
+        if (n == 0) {
+            return;
+        }
+
+        // Hojas: ceil(n / maxKeys) hojas con la misma cantidad de celdas (±1)
+        int leafCount = (n + maxKeys - 1) / maxKeys;
+        List<Node> level = new ArrayList<>(leafCount);
+        List<Cell> lowest = new ArrayList<>(leafCount); // menor celda de cada nodo del nivel
+        Leaf previous = null;
+        int from = 0;
+        for (int l = 0; l < leafCount; l++) {
+            int to = (int) ((long) n * (l + 1) / leafCount);
+            Leaf leaf = new Leaf(capacity);
+            for (int k = from; k < to; k++) {
+                leaf.keys[k - from] = sorted[k].FM;
+                leaf.cells[k - from] = sorted[k];
+            }
+            leaf.count = to - from;
+            leaf.prev = previous;
+            if (previous != null) {
+                previous.next = leaf;
+            }
+            previous = leaf;
+            level.add(leaf);
+            lowest.add(sorted[from]);
+            from = to;
+        }
+        head = (Leaf) level.get(0);
+
+        // Niveles internos hasta que quede una sola raíz
+        while (level.size() > 1) {
+            int m = level.size();
+            int parentCount = (m + maxKeys) / (maxKeys + 1); // cada nodo admite maxKeys + 1 hijos
+            List<Node> parents = new ArrayList<>(parentCount);
+            List<Cell> parentLowest = new ArrayList<>(parentCount);
+            from = 0;
+            for (int p = 0; p < parentCount; p++) {
+                int to = (int) ((long) m * (p + 1) / parentCount);
+                Inner inner = new Inner(capacity);
+                for (int k = from; k < to; k++) {
+                    inner.children[k - from] = level.get(k);
+                    if (k > from) {
+                        inner.separators[k - from - 1] = lowest.get(k);
+                        inner.keys[k - from - 1] = lowest.get(k).FM;
+                    }
+                }
+                inner.count = to - from - 1;
+                parents.add(inner);
+                parentLowest.add(lowest.get(from));
+                from = to;
+            }
+            level = parents;
+            lowest = parentLowest;
+        }
+        root = level.get(0);
+        size = n;
+    }
+
+    // ==================== CONSULTAS GENERALES ====================
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isCompositeKey() {
+        return compositeKey;
+    }
+
+    /**
+     * Cantidad de niveles (1 si la raíz es una hoja).
+     */
+    public int getHeight() {
+        int levels = 1;
+        for (Node node = root; node instanceof Inner; node = ((Inner) node).children[0]) {
+            levels++;
+        }
+        return levels;
+    }
+
+    /**
+     * Iterador en orden que recorre las hojas enlazadas.
+     */
+    @Override
+    public Iterator<Cell> iterator() {
+        return new Iterator<Cell>() {
+            private final int expectedModCount = modCount;
+            private Leaf leaf = head;
+            private int pos = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (leaf != null && pos >= leaf.count) {
+                    leaf = leaf.next;
+                    pos = 0;
+                }
+                return leaf != null;
+            }
+
+            @Override
+            public Cell next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return leaf.cells[pos++];
+            }
+        };
+    }
+}
@@ -101,4 +101,17 @@ public class BinarySearchTree extends BinaryTree {
         }
         return node;
     }
+
+    /**
+     * Encuentra el nodo con mayor FM en el árbol.
+     *
+     * @param node nodo raíz del subárbol
+     * @return el nodo con FM máximo
+     */
+    protected NodeCell findMax(NodeCell node) {
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node;
+    }
 }
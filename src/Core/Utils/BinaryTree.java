@@ -4,6 +4,8 @@
  */
 package Core.Utils;
 
+import java.util.Arrays;
+
 /**
  * Clase que representa un árbol binario cuyos nodos son de tipo
  * {@link NodeCell}.
@@ -187,76 +189,63 @@ public class BinaryTree {
         return getHeight(node.left) - getHeight(node.right);
     }
 
-    private int getLevel(NodeCell current, NodeCell target, int level) {
-        if (current == null) {
-            return -1;
-        }
-        if (current == target) {
-            return level;
-        }
-
-        int left = getLevel(current.left, target, level + 1);
-        if (left != -1) {
-            return left;
-        }
-
-        return getLevel(current.right, target, level + 1);
-    }
-
-    private NodeCell getParent(NodeCell current, NodeCell target) {
-        if (current == null || current == target) {
-            return null;
-        }
-        if (current.left == target || current.right == target) {
-            return current;
-        }
-
-        if (target.cell.FM < current.cell.FM) {
-            return getParent(current.left, target);
-        } else {
-            return getParent(current.right, target);
+    // ==================== INFO DEL NODO ====================
+    /**
+     * Nivel, balance y parientes del nodo con la clave dada, guardando el
+     * camino en un solo descenso desde la raíz.
+     *
+     * @return el contexto del nodo, o null si la clave no existe
+     */
+    public NodeContext describe(double key) {
+        NodeCell[] path = new NodeCell[8];
+        int depth = 0;
+        NodeCell current = root;
+        while (current != null) {
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+            }
+            path[depth] = current;
+            if (current.cell.FM == key) {
+                return new NodeContext(path, depth, getBalance(current));
+            }
+            current = (key < current.cell.FM) ? current.left : current.right;
+            depth++;
         }
+        return null;
     }
 
-    // ==================== INFO DEL NODO ====================
     public void showNodeInfo(double key) {
-        NodeCell node = search(key);
+        NodeContext context = describe(key);
 
         System.out.println("Información del nodo con clave: " + key);
+        if (context == null) {
+            System.out.println("El dato no existe");
+            return;
+        }
 
-        // Nivel del nodo
-        int level = getLevel(this.root, node, 0);
-        System.out.println("Nivel: " + level);
+        // Nivel del nodo (contando la raíz como nivel 0)
+        System.out.println("Nivel: " + (context.level - 1));
 
         // Factor de equilibrio
-        int balance = getBalance(node);
-        System.out.println("Factor de equilibrio: " + balance);
+        System.out.println("Factor de equilibrio: " + context.balance);
 
         // Padre
-        NodeCell parent = getParent(root, node);
-        if (parent != null) {
-            System.out.println("Padre: " + parent.cell.toStringWithoutID());
+        if (context.parent != null) {
+            System.out.println("Padre: " + context.parent.cell.toStringWithoutID());
         } else {
             System.out.println("Padre: (no tiene, es la raíz)");
         }
 
         // Abuelo
-        NodeCell grandparent = (parent != null) ? getParent(root, parent) : null;
-        if (grandparent != null) {
-            System.out.println("Abuelo: " + grandparent.cell.toStringWithoutID());
+        if (context.grandparent != null) {
+            System.out.println("Abuelo: " + context.grandparent.cell.toStringWithoutID());
         } else {
             System.out.println("Abuelo: (no tiene)");
         }
 
         // Tío (hermano del padre)
-        if (grandparent != null) {
-            if (grandparent.left != null && grandparent.left != parent) {
-                System.out.println("Tío: " + grandparent.left.cell.toStringWithoutID());
-            } else if (grandparent.right != null && grandparent.right != parent) {
-                System.out.println("Tío: " + grandparent.right.cell.toStringWithoutID());
-            } else {
-                System.out.println("Tío: (no tiene)");
-            }
+        if (context.uncle != null) {
+            System.out.println("Tío: " + context.uncle.cell.toStringWithoutID());
         } else {
             System.out.println("Tío: (no tiene)");
         }
@@ -22,37 +22,52 @@ import java.util.ArrayList;
  * en los campos de texto. - Si una celda numérica está vacía o mal escrita, se
  * reemplaza por 0.0.
  *
+ * Las mediciones no se guardan en un arreglo por celda sino en un
+ * {@link MeasurementStore} columnar; cada celda queda apuntando a su fila.
+ *
  * @author Rashid
  */
 public class CSVReaderUtil {
 
+    // Split "inteligente": separa por comas pero respeta las que están dentro de comillas
+    private static final String SPLIT_REGEX = ",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)";
+
     /**
      * Lee un archivo CSV desde la ruta especificada y devuelve una lista de
-     * objetos {@link Cell}.
+     * objetos {@link Cell}. Las mediciones quedan en un almacén nuevo con una
+     * columna por cada año de la cabecera.
      *
      * @param filePath Ruta del archivo CSV a leer.
      * @return Lista de celdas con la información procesada.
      */
     public static ArrayList<Cell> readCSV(String filePath) {
+        return readCSV(filePath, null);
+    }
+
+    /**
+     * Igual que {@link #readCSV(String)}, pero guardando las mediciones en el
+     * almacén dado (debe tener al menos tantas columnas como años el CSV).
+     *
+     * @param filePath Ruta del archivo CSV a leer.
+     * @param store almacén donde se agregan las filas, o null para crear uno
+     * según la cabecera.
+     * @return Lista de celdas con la información procesada.
+     */
+    public static ArrayList<Cell> readCSV(String filePath, MeasurementStore store) {
         ArrayList<Cell> cells = new ArrayList<>();
 
         try ( BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            boolean firstLine = true; // bandera para saltar la cabecera
+            String line = br.readLine(); // la cabecera solo se usa para contar los años
+            if (line == null) {
+                return cells;
+            }
+            if (store == null) {
+                store = new MeasurementStore(Math.max(0, split(line).length - 3));
+            }
+            double[] F_i = new double[store.yearCount()]; // buffer reutilizado para cada fila
 
             while ((line = br.readLine()) != null) {
-                if (firstLine) {
-                    firstLine = false;
-                    continue; // saltar la cabecera
-                }
-
-                // Split "inteligente": separa por comas pero respeta las que están dentro de comillas
-                String[] data = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
-
-                // Eliminar comillas sobrantes y espacios en blanco
-                for (int i = 0; i < data.length; i++) {
-                    data[i] = data[i].replaceAll("^\"|\"$", "").trim();
-                }
+                String[] data = split(line);
 
                 // Primeras 3 columnas fijas: ID, nombre del país y código ISO3
                 int objectId = Integer.parseInt(data[0]);
@@ -60,8 +75,7 @@ public class CSVReaderUtil {
                 String iso3 = data[2];
 
                 // Columnas de años (dinámico: desde la 4 en adelante)
-                int yearCount = data.length - 3;
-                double[] F_i = new double[yearCount];
+                int yearCount = Math.min(data.length - 3, F_i.length);
                 for (int i = 0; i < yearCount; i++) {
                     String value = data[i + 3].trim();
                     if (value.isEmpty()) {
@@ -77,7 +91,8 @@ public class CSVReaderUtil {
 
                 // Crear la celda con ID, país e ISO3
                 Cell cell = new Cell(objectId, country, iso3, 0);
-                cell.F_i = F_i;
+                cell.row = store.addRow(F_i, yearCount);
+                cell.store = store;
 
                 // Calcular y asignar el promedio FM una sola vez
                 cell.FM = cell.averageTemperature();
@@ -92,4 +107,16 @@ public class CSVReaderUtil {
         
         return cells;
     }
+
+    /**
+     * Separa una línea en columnas y elimina comillas sobrantes y espacios en
+     * blanco.
+     */
+    private static String[] split(String line) {
+        String[] data = line.split(SPLIT_REGEX);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = data[i].replaceAll("^\"|\"$", "").trim();
+        }
+        return data;
+    }
 }
@@ -12,8 +12,10 @@ package Core.Utils;
 /**
  * Cada objeto de tipo Cell contiene: - Identificador (usado solo para
  * depuración o visualización inicial). - Nombre del país y código ISO3. - Valor
- * FM (variación promedio de la temperatura). - (Opcional) Un arreglo con varias
- * mediciones F_i, para calcular promedios.
+ * FM (variación promedio de la temperatura). - Las mediciones anuales, ya sea
+ * como fila de un {@link MeasurementStore} (lo normal al leer el CSV) o en el
+ * arreglo opcional F_i. Conviene leerlas con {@link #measurement(int)} y
+ * {@link #measurementCount()}, que funcionan en ambos casos.
  *
  * @author Rashid
  */
@@ -26,6 +28,8 @@ public class Cell {
     public double FM;        // Variación promedio de la temperatura
     public double[] F_i;     /* (Opcional) conjunto de mediciones individuales, esto se usa por que es la información necesaria para
                                 calcular FM, se podría ignorar, pero para mantenerlo entendible se deja */
+    public MeasurementStore store; // Almacén columnar con las mediciones (null si se usan F_i)
+    public int row = -1;           // Fila de la celda dentro de store
 
     /**
      * Constructor principal para crear un registro de país.
@@ -44,20 +48,57 @@ public class Cell {
     }
 
     /**
-     * Calcula el promedio de las mediciones almacenadas en el arreglo F_i. Si
-     * no hay datos cargados, retorna 0.
+     * Cantidad de mediciones anuales de la celda (0 si no tiene datos).
+     */
+    public int measurementCount() {
+        if (store != null) {
+            return store.length(row);
+        }
+        return (F_i == null) ? 0 : F_i.length;
+    }
+
+    /**
+     * Indica si la celda tiene alguna medición cargada.
+     */
+    public boolean hasMeasurements() {
+        return measurementCount() > 0;
+    }
+
+    /**
+     * Medición de un año, por posición (0 = primer año). Debe ser menor a
+     * {@link #measurementCount()}.
+     */
+    public double measurement(int position) {
+        return (store != null) ? store.get(row, position) : F_i[position];
+    }
+
+    /**
+     * Copia de todas las mediciones de la celda.
+     */
+    public double[] measurements() {
+        double[] values = new double[measurementCount()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = measurement(i);
+        }
+        return values;
+    }
+
+    /**
+     * Calcula el promedio de las mediciones de la celda. Si no hay datos
+     * cargados, retorna 0.
      *
      * @return promedio de las mediciones, o 0 si no existen datos.
      */
     public double averageTemperature() {
-        if (F_i == null || F_i.length == 0) {
+        int count = measurementCount();
+        if (count == 0) {
             return 0.0;
         }
         double sum = 0;
-        for (double val : F_i) {
-            sum += val;
+        for (int i = 0; i < count; i++) {
+            sum += measurement(i);
         }
-        return sum / F_i.length;
+        return sum / count;
     }
 
     /**
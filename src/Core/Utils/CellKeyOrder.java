@@ -0,0 +1,50 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Utils;
+
+import java.util.Comparator;
+
+/**
+ * Orden de las claves de celda que comparten todas las estructuras: por FM y,
+ * en modo de clave compuesta, por ISO3 ante empates (null antes que cualquier
+ * código).
+ *
+ * @author Rashid
+ */
+final class CellKeyOrder {
+
+    private static final Comparator<Cell> SIMPLE = (a, b) -> compare(a.FM, a.ISO3, b, false);
+    private static final Comparator<Cell> COMPOSITE = (a, b) -> compare(a.FM, a.ISO3, b, true);
+
+    private CellKeyOrder() {
+    }
+
+    /**
+     * Compara una clave (FM, ISO3) contra la clave de una celda. En modo de
+     * clave simple el ISO3 se ignora.
+     */
+    static int compare(double FM, String ISO3, Cell cell, boolean compositeKey) {
+        if (FM < cell.FM) {
+            return -1;
+        }
+        if (FM > cell.FM) {
+            return 1;
+        }
+        if (!compositeKey) {
+            return 0;
+        }
+        if (ISO3 == null || cell.ISO3 == null) {
+            return (ISO3 == null) ? ((cell.ISO3 == null) ? 0 : -1) : 1;
+        }
+        return ISO3.compareTo(cell.ISO3);
+    }
+
+    /**
+     * Comparador de celdas según el modo de clave.
+     */
+    static Comparator<Cell> comparator(boolean compositeKey) {
+        return compositeKey ? COMPOSITE : SIMPLE;
+    }
+}
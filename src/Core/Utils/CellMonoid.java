@@ -0,0 +1,35 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Interface.java to edit this template
+ */
+package Core.Utils;
+
+/**
+ * Resumen asociativo que se puede guardar en cada nodo de un
+ * {@link AggregateBST}.
+ *
+ * Un monoide define un valor neutro, cómo convertir una sola {@link Cell} en
+ * un resumen y cómo combinar dos resúmenes. La combinación debe ser asociativa
+ * (no hace falta que sea conmutativa: el árbol siempre combina de izquierda a
+ * derecha en orden de FM).
+ *
+ * @param <S> tipo del resumen
+ * @author Rashid
+ */
+public interface CellMonoid<S> {
+
+    /**
+     * Resumen de un conjunto vacío de celdas.
+     */
+    S identity();
+
+    /**
+     * Resumen de una sola celda.
+     */
+    S lift(Cell cell);
+
+    /**
+     * Combina el resumen de un grupo izquierdo con el de un grupo derecho.
+     */
+    S combine(S left, S right);
+}
@@ -0,0 +1,287 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Utils;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * Copia binaria de las celdas cargadas desde el CSV para que los siguientes
+ * arranques no tengan que volver a parsearlo.
+ *
+ * El snapshot se guarda junto al CSV (data.csv → data.csv.snap) con las celdas
+ * en el orden del árbol, y recuerda el tamaño y la fecha de modificación del
+ * CSV del que salió: si el CSV cambia, el snapshot se ignora y se vuelve a
+ * leer el CSV. Se lee y escribe por {@link FileChannel} con un buffer directo.
+ *
+ * Como las celdas quedan ordenadas, {@link SelfBalancingBST#buildFrom} no
+ * necesita ordenarlas y arma el árbol en tiempo lineal.
+ *
+ * Formato: cabecera (firma, versión, años, cantidad, tamaño y fecha del CSV)
+ * y por cada celda: ID, FM, ISO3, país, cantidad de mediciones y mediciones.
+ *
+ * @author Rashid
+ */
+public final class CellSnapshot {
+
+    public static final String EXTENSION = ".snap";
+
+    private static final int MAGIC = 0x534E4150; // "SNAP"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private CellSnapshot() {
+    }
+
+    /**
+     * Ruta del snapshot que corresponde a un CSV.
+     */
+    public static Path pathFor(String csvPath) {
+        return Paths.get(csvPath + EXTENSION);
+    }
+
+    // ==================== CARGA ====================
+    /**
+     * Carga las celdas del CSV usando su snapshot si existe y está al día; si
+     * no, lee el CSV con {@link CSVReaderUtil#readCSV(String, MeasurementStore)}.
+     *
+     * @param csvPath ruta del CSV
+     * @param store almacén donde quedan las mediciones, o null para crear uno
+     * @return celdas cargadas (ordenadas por clave si salieron del snapshot)
+     */
+    public static ArrayList<Cell> load(String csvPath, MeasurementStore store) {
+        Path snapshot = pathFor(csvPath);
+        if (isCurrent(snapshot, Paths.get(csvPath))) {
+            try {
+                return read(snapshot, store);
+            } catch (IOException e) {
+                System.out.println("Snapshot inválido, se lee el CSV: " + e.getMessage());
+            }
+        }
+        return CSVReaderUtil.readCSV(csvPath, store);
+    }
+
+    /**
+     * Escribe el snapshot del CSV si no existe o quedó desactualizado. Un
+     * error al escribir solo se informa: el snapshot es una optimización.
+     *
+     * @param csvPath ruta del CSV del que salieron las celdas
+     * @param cellsInOrder celdas en orden de clave (por ejemplo, el árbol)
+     */
+    public static void saveIfStale(String csvPath, Iterable<Cell> cellsInOrder) {
+        Path snapshot = pathFor(csvPath);
+        Path source = Paths.get(csvPath);
+        if (!Files.exists(source) || isCurrent(snapshot, source)) {
+            return;
+        }
+        try {
+            write(snapshot, cellsInOrder, source);
+        } catch (IOException e) {
+            System.out.println("No se pudo guardar el snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Indica si el snapshot existe y corresponde a la versión actual del CSV.
+     */
+    public static boolean isCurrent(Path snapshot, Path source) {
+        if (!Files.isRegularFile(snapshot) || !Files.isRegularFile(source)) {
+            return false;
+        }
+        try (FileChannel in = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && in.read(header) >= 0) {
+            }
+            File csv = source.toFile();
+            return !header.hasRemaining() && header.getInt(0) == MAGIC && header.getInt(4) == VERSION
+                    && header.getLong(16) == csv.length() && header.getLong(24) == csv.lastModified();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // ==================== ESCRITURA ====================
+    /**
+     * Escribe un snapshot con las celdas dadas. Se escribe primero en un
+     * archivo temporal y luego se reemplaza, para no dejar snapshots a medias.
+     *
+     * @param file archivo destino
+     * @param cellsInOrder celdas en orden de clave
+     * @param source CSV del que salieron (su tamaño y fecha quedan en la
+     * cabecera), o null
+     */
+    public static void write(Path file, Iterable<Cell> cellsInOrder, Path source) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        int count = 0;
+        int yearCount = 0;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer.position(HEADER_SIZE); // la cabecera se completa al final
+            for (Cell cell : cellsInOrder) {
+                byte[] iso3 = bytes(cell.ISO3);
+                byte[] country = bytes(cell.Country);
+                int measurements = cell.measurementCount();
+                int length = 4 + 8 + 2 + length(iso3) + 2 + length(country) + 2 + measurements * 8;
+                if (length > BUFFER_SIZE) {
+                    throw new IOException("La celda es demasiado grande: " + cell.toStringWithoutID());
+                }
+                if (buffer.remaining() < length) {
+                    flush(out, buffer);
+                }
+                buffer.putInt(cell.ObjectId);
+                buffer.putDouble(cell.FM);
+                putString(buffer, iso3);
+                putString(buffer, country);
+                buffer.putShort((short) measurements);
+                for (int i = 0; i < measurements; i++) {
+                    buffer.putDouble(cell.measurement(i));
+                }
+                yearCount = Math.max(yearCount, measurements);
+                count++;
+            }
+            flush(out, buffer);
+
+            File csv = (source == null) ? null : source.toFile();
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(yearCount);
+            buffer.putInt(count);
+            buffer.putLong((csv == null) ? -1 : csv.length());
+            buffer.putLong((csv == null) ? -1 : csv.lastModified());
+            buffer.flip();
+            long position = 0;
+            while (buffer.hasRemaining()) {
+                position += out.write(buffer, position);
+            }
+            out.force(false);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void flush(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static byte[] bytes(String text) {
+        return (text == null) ? null : text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] bytes) {
+        return (bytes == null) ? 0 : bytes.length;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putShort((short) -1);
+        } else {
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    // ==================== LECTURA ====================
+    /**
+     * Lee un snapshot. Las mediciones se pasan al almacén solo cuando todo el
+     * archivo se leyó bien, para que un snapshot dañado no deje filas de más.
+     *
+     * @param store almacén donde quedan las mediciones, o null para crear uno
+     * @return celdas en el orden en que se guardaron
+     * @throws IOException si el archivo está dañado o no es compatible con el
+     * almacén
+     */
+    public static ArrayList<Cell> read(Path file, MeasurementStore store) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer.limit(0);
+            require(in, buffer, HEADER_SIZE);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("El archivo no es un snapshot de celdas: " + file);
+            }
+            int yearCount = buffer.getInt();
+            int count = buffer.getInt();
+            buffer.getLong();
+            buffer.getLong();
+            if (store == null) {
+                store = new MeasurementStore(yearCount, count);
+            } else if (store.yearCount() < yearCount) {
+                throw new IOException("El snapshot tiene " + yearCount + " años y el almacén " + store.yearCount());
+            }
+
+            ArrayList<Cell> cells = new ArrayList<>(count);
+            double[][] values = new double[count][];
+            for (int c = 0; c < count; c++) {
+                require(in, buffer, 4 + 8 + 2);
+                int objectId = buffer.getInt();
+                double FM = buffer.getDouble();
+                String iso3 = readString(in, buffer);
+                String country = readString(in, buffer);
+                require(in, buffer, 2);
+                int measurements = buffer.getShort();
+                if (measurements < 0 || measurements > yearCount) {
+                    throw new IOException("Cantidad de mediciones inválida en la celda " + c);
+                }
+                require(in, buffer, measurements * 8);
+                double[] F_i = new double[measurements];
+                for (int i = 0; i < measurements; i++) {
+                    F_i[i] = buffer.getDouble();
+                }
+                cells.add(new Cell(objectId, country, iso3, FM));
+                values[c] = F_i;
+            }
+
+            for (int c = 0; c < count; c++) {
+                Cell cell = cells.get(c);
+                cell.row = store.addRow(values[c], values[c].length);
+                cell.store = store;
+            }
+            return cells;
+        }
+    }
+
+    private static String readString(FileChannel in, ByteBuffer buffer) throws IOException {
+        require(in, buffer, 2);
+        int length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        require(in, buffer, length);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Asegura que el buffer tenga al menos {@code bytes} bytes sin leer,
+     * trayendo más del canal si hace falta.
+     */
+    private static void require(FileChannel in, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (in.read(buffer) < 0) {
+                throw new EOFException("El snapshot está incompleto");
+            }
+        }
+        buffer.flip();
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Utils;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * {@link Spliterator} inorden sobre un {@link SelfBalancingBST}.
+ *
+ * Lo pendiente por recorrer se guarda como una pila de segmentos en orden:
+ * cada segmento es un subárbol completo o un único nodo. Recorrer solo
+ * necesita O(altura) de memoria y no copia las celdas.
+ *
+ * Para los streams paralelos, {@link #trySplit()} entrega a otro hilo los
+ * primeros segmentos (subárboles enteros) hasta cubrir la mitad de lo
+ * pendiente; si un subárbol es más grande que lo que falta, se parte en
+ * izquierdo, nodo y derecho. Como cada nodo guarda el tamaño de su subárbol,
+ * ambas mitades conocen su tamaño exacto (SIZED y SUBSIZED).
+ *
+ * @author Rashid
+ */
+final class CellSpliterator implements Spliterator<Cell> {
+
+    private static final int CHARACTERISTICS = ORDERED | SORTED | SIZED | SUBSIZED
+            | DISTINCT | NONNULL;
+
+    private final SelfBalancingBST tree;
+    private final int expectedModCount;
+
+    // Pila de segmentos: el tope es lo siguiente en orden
+    private NodeCell[] nodes;
+    private boolean[] whole;   // true: subárbol completo, false: solo el nodo
+    private int top;
+    private long remaining;    // cantidad exacta de celdas pendientes
+
+    CellSpliterator(SelfBalancingBST tree) {
+        this(tree, tree.modCount, 2 * Math.max(1, tree.getHeight(tree.root)) + 2);
+        if (tree.root != null) {
+            push(tree.root, true);
+            remaining = tree.root.size;
+        }
+    }
+
+    private CellSpliterator(SelfBalancingBST tree, int expectedModCount, int capacity) {
+        this.tree = tree;
+        this.expectedModCount = expectedModCount;
+        this.nodes = new NodeCell[capacity];
+        this.whole = new boolean[capacity];
+    }
+
+    private void push(NodeCell node, boolean isWhole) {
+        if (top == nodes.length) {
+            nodes = Arrays.copyOf(nodes, top * 2);
+            whole = Arrays.copyOf(whole, top * 2);
+        }
+        nodes[top] = node;
+        whole[top] = isWhole;
+        top++;
+    }
+
+    /**
+     * Saca el siguiente nodo en orden, expandiendo los subárboles del tope
+     * por su camino izquierdo. Retorna null si no queda nada.
+     */
+    private NodeCell nextNode() {
+        while (top > 0) {
+            top--;
+            NodeCell node = nodes[top];
+            nodes[top] = null;
+            if (!whole[top]) {
+                remaining--;
+                return node;
+            }
+            // Subárbol completo: izquierdo, nodo, derecho
+            while (node != null) {
+                if (node.right != null) {
+                    push(node.right, true);
+                }
+                push(node, false);
+                node = node.left;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Cell> action) {
+        NodeCell node = nextNode();
+        if (node == null) {
+            return false;
+        }
+        action.accept(node.cell);
+        checkForComodification();
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Cell> action) {
+        NodeCell node;
+        while ((node = nextNode()) != null) {
+            action.accept(node.cell);
+        }
+        checkForComodification();
+    }
+
+    private void checkForComodification() {
+        if (tree.modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Entrega los primeros segmentos pendientes, hasta la mitad de las celdas,
+     * a un nuevo spliterator. Retorna null si queda muy poco para dividir.
+     */
+    @Override
+    public Spliterator<Cell> trySplit() {
+        if (remaining < 2) {
+            return null;
+        }
+        long target = remaining / 2;
+        long taken = 0;
+        NodeCell[] prefixNodes = new NodeCell[nodes.length];
+        boolean[] prefixWhole = new boolean[nodes.length];
+        int prefixCount = 0;
+
+        while (top > 0 && taken < target) {
+            NodeCell node = nodes[top - 1];
+            boolean isWhole = whole[top - 1];
+            long size = isWhole ? node.size : 1;
+
+            if (taken + size <= target) {
+                // El segmento cabe completo en la mitad que se entrega
+                top--;
+                nodes[top] = null;
+                if (prefixCount == prefixNodes.length) {
+                    prefixNodes = Arrays.copyOf(prefixNodes, prefixCount * 2);
+                    prefixWhole = Arrays.copyOf(prefixWhole, prefixCount * 2);
+                }
+                prefixNodes[prefixCount] = node;
+                prefixWhole[prefixCount] = isWhole;
+                prefixCount++;
+                taken += size;
+            } else {
+                // Subárbol demasiado grande: se reemplaza por izquierdo, nodo y derecho
+                top--;
+                nodes[top] = null;
+                if (node.right != null) {
+                    push(node.right, true);
+                }
+                push(node, false);
+                if (node.left != null) {
+                    push(node.left, true);
+                }
+            }
+        }
+
+        if (prefixCount == 0) {
+            return null;
+        }
+        CellSpliterator prefix = new CellSpliterator(tree, expectedModCount,
+                Math.max(prefixCount, nodes.length));
+        for (int i = prefixCount - 1; i >= 0; i--) {
+            prefix.push(prefixNodes[i], prefixWhole[i]);
+        }
+        prefix.remaining = taken;
+        remaining -= taken;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return remaining;
+    }
+
+    @Override
+    public int characteristics() {
+        return CHARACTERISTICS;
+    }
+
+    @Override
+    public Comparator<? super Cell> getComparator() {
+        return tree.comparator();
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Utils;
+
+/**
+ * Resumen estadístico inmutable de un grupo de valores: cantidad, suma,
+ * mínimo, máximo y suma de cuadrados. A partir de estos datos se obtienen el
+ * promedio y la varianza sin volver a recorrer los valores.
+ *
+ * Dos resúmenes se combinan sumando sus partes, por eso sirve como monoide
+ * ({@link #FM_MONOID}) para un {@link AggregateBST}.
+ *
+ * @author Rashid
+ */
+public final class CellStats {
+
+    /**
+     * Resumen de un grupo vacío.
+     */
+    public static final CellStats EMPTY = new CellStats(0, 0.0,
+            Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0.0);
+
+    /**
+     * Monoide que resume el FM de cada celda.
+     */
+    public static final CellMonoid<CellStats> FM_MONOID = new CellMonoid<CellStats>() {
+        @Override
+        public CellStats identity() {
+            return EMPTY;
+        }
+
+        @Override
+        public CellStats lift(Cell cell) {
+            return of(cell.FM);
+        }
+
+        @Override
+        public CellStats combine(CellStats left, CellStats right) {
+            return left.combine(right);
+        }
+    };
+
+    public final long count;           // Cantidad de valores
+    public final double sum;           // Suma de los valores
+    public final double min;           // Valor mínimo (+infinito si está vacío)
+    public final double max;           // Valor máximo (-infinito si está vacío)
+    public final double sumOfSquares;  // Suma de los cuadrados de los valores
+
+    public CellStats(long count, double sum, double min, double max, double sumOfSquares) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+        this.sumOfSquares = sumOfSquares;
+    }
+
+    /**
+     * Resumen de un solo valor.
+     */
+    public static CellStats of(double value) {
+        return new CellStats(1, value, value, value, value * value);
+    }
+
+    /**
+     * Combina este resumen con otro.
+     */
+    public CellStats combine(CellStats other) {
+        if (other.count == 0) {
+            return this;
+        }
+        if (this.count == 0) {
+            return other;
+        }
+        return new CellStats(count + other.count,
+                sum + other.sum,
+                Math.min(min, other.min),
+                Math.max(max, other.max),
+                sumOfSquares + other.sumOfSquares);
+    }
+
+    /**
+     * Promedio de los valores. Si no hay datos, retorna 0 (igual que
+     * {@link Cell#averageTemperature()}).
+     */
+    public double average() {
+        return (count == 0) ? 0.0 : sum / count;
+    }
+
+    /**
+     * Varianza poblacional de los valores, o 0 si no hay datos.
+     */
+    public double variance() {
+        if (count == 0) {
+            return 0.0;
+        }
+        double mean = sum / count;
+        return Math.max(0.0, sumOfSquares / count - mean * mean);
+    }
+
+    @Override
+    public String toString() {
+        return "Count: " + count
+                + " | Sum: " + sum
+                + " | Min: " + min
+                + " | Max: " + max
+                + " | Avg: " + average();
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Envoltorio seguro para hilos de un {@link SelfBalancingBST}.
+ *
+ * Las modificaciones (insertar, eliminar, carga masiva) toman el bloqueo de
+ * escritura de un {@link StampedLock}. Las consultas (búsqueda, rangos y
+ * recorrido) primero se intentan como lectura optimista: recorren el árbol sin
+ * bloquear y al final validan que ninguna escritura haya ocurrido mientras
+ * tanto. Si hubo una escritura, o el recorrido encontró un estado a medio
+ * modificar, se repite con el bloqueo de lectura. Así los lectores no
+ * escriben memoria compartida y escalan con los núcleos mientras no haya
+ * escrituras.
+ *
+ * Un recorrido optimista puede ver punteros a medio actualizar, por eso cada
+ * uno tiene un límite de pasos y cualquier inconsistencia se trata como una
+ * validación fallida. Los observadores del árbol se notifican dentro del
+ * bloqueo de escritura.
+ *
+ * El árbol envuelto no debe usarse directamente desde otros hilos mientras
+ * exista el envoltorio.
+ *
+ * @author Rashid
+ */
+public class ConcurrentCellTree {
+
+    private static final int MAX_DEPTH = 64; // un AVL de 2^31 nodos no pasa de ~45 niveles
+
+    private final SelfBalancingBST tree;
+    private final StampedLock lock = new StampedLock();
+
+    public ConcurrentCellTree(SelfBalancingBST tree) {
+        this.tree = tree;
+    }
+
+    /**
+     * Señal de que una lectura optimista encontró un estado inconsistente.
+     */
+    private static final class Inconsistent extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        Inconsistent() {
+            super(null, null, false, false); // sin traza: es parte del flujo normal
+        }
+    }
+
+    private static final Inconsistent INCONSISTENT = new Inconsistent();
+
+    // ==================== ESCRITURA ====================
+    /**
+     * Inserta una celda.
+     *
+     * @return true si se insertó, false si la clave ya existía
+     */
+    public boolean insert(Cell cell) {
+        long stamp = lock.writeLock();
+        try {
+            return tree.insert(cell);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Elimina la celda con el FM dado.
+     *
+     * @return true si se eliminó
+     */
+    public boolean delete(double FM) {
+        long stamp = lock.writeLock();
+        try {
+            return tree.delete(FM);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Elimina la celda con el FM e ISO3 dados.
+     *
+     * @return true si se eliminó
+     */
+    public boolean delete(double FM, String ISO3) {
+        long stamp = lock.writeLock();
+        try {
+            return tree.delete(FM, ISO3);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Reemplaza el contenido del árbol (ver {@link SelfBalancingBST#buildFrom}).
+     */
+    public void buildFrom(Collection<Cell> cells) {
+        long stamp = lock.writeLock();
+        try {
+            tree.buildFrom(cells);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // ==================== LECTURA ====================
+    /**
+     * Ejecuta una lectura: primero optimista y, si no se pudo validar, con el
+     * bloqueo de lectura.
+     */
+    private <T> T read(Supplier<T> optimistic, Supplier<T> locked) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T result = optimistic.get();
+                if (lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                // Estado a medio modificar (o límite de pasos): se repite con bloqueo
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return locked.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Ejecuta una consulta arbitraria sobre el árbol con el bloqueo de lectura
+     * (para operaciones que no tienen versión optimista).
+     */
+    public <R> R withReadLock(Function<SelfBalancingBST, R> query) {
+        long stamp = lock.readLock();
+        try {
+            return query.apply(tree);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Cantidad de celdas.
+     */
+    public int size() {
+        return read(() -> {
+            NodeCell root = tree.root;
+            return (root == null) ? 0 : root.size;
+        }, tree::size);
+    }
+
+    /**
+     * Busca una celda por FM (en modo compuesto, cualquiera de las que tienen
+     * ese FM).
+     *
+     * @return la celda, o null si no existe
+     */
+    public Cell search(double FM) {
+        return read(() -> {
+            NodeCell node = tree.root;
+            for (int depth = 0; node != null; depth++) {
+                if (depth > MAX_DEPTH) {
+                    throw INCONSISTENT;
+                }
+                Cell cell = node.cell;
+                if (FM == cell.FM) {
+                    return cell;
+                }
+                node = (FM < cell.FM) ? node.left : node.right;
+            }
+            return null;
+        }, () -> {
+            NodeCell node = tree.search(FM);
+            return (node == null) ? null : node.cell;
+        });
+    }
+
+    /**
+     * Busca la celda con el FM e ISO3 dados.
+     *
+     * @return la celda, o null si no existe
+     */
+    public Cell search(double FM, String ISO3) {
+        return read(() -> {
+            Cell probe = new Cell(0, null, ISO3, FM);
+            Comparator<Cell> byKey = tree.comparator();
+            NodeCell node = tree.root;
+            for (int depth = 0; node != null; depth++) {
+                if (depth > MAX_DEPTH) {
+                    throw INCONSISTENT;
+                }
+                int cmp = byKey.compare(probe, node.cell);
+                if (cmp == 0) {
+                    return Objects.equals(ISO3, node.cell.ISO3) ? node.cell : null;
+                }
+                node = (cmp < 0) ? node.left : node.right;
+            }
+            return null;
+        }, () -> {
+            NodeCell node = tree.search(FM, ISO3);
+            return (node == null) ? null : node.cell;
+        });
+    }
+
+    /**
+     * Celdas con FM dentro del intervalo cerrado [lo, hi], ordenadas.
+     */
+    public List<Cell> rangeQuery(double lo, double hi) {
+        return read(() -> collect(lo, hi), () -> tree.rangeQuery(lo, hi));
+    }
+
+    /**
+     * Copia de todas las celdas en orden.
+     */
+    public List<Cell> inOrderAdding() {
+        return read(() -> collect(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY),
+                tree::inOrderAdding);
+    }
+
+    /**
+     * Recorrido inorden iterativo, podado por el intervalo [lo, hi], con pila
+     * de tamaño fijo y límite de nodos visitados.
+     */
+    private List<Cell> collect(double lo, double hi) {
+        NodeCell root = tree.root;
+        int budget = ((root == null) ? 0 : root.size) + 2 * MAX_DEPTH;
+        List<Cell> result = new ArrayList<>();
+        NodeCell[] stack = new NodeCell[MAX_DEPTH];
+        int top = 0;
+        NodeCell node = root;
+        while (node != null || top > 0) {
+            while (node != null) {
+                if (--budget < 0 || top == MAX_DEPTH) {
+                    throw INCONSISTENT;
+                }
+                if (node.cell.FM >= lo) {
+                    stack[top++] = node; // puede haber celdas del rango a la izquierda
+                    node = node.left;
+                } else {
+                    node = node.right;   // todo el subárbol izquierdo queda fuera
+                }
+            }
+            if (top == 0) {
+                break;
+            }
+            node = stack[--top];
+            if (node.cell.FM > hi) {
+                break; // en orden: todo lo que sigue es mayor
+            }
+            result.add(node.cell);
+            node = node.right;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,588 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Árbol B+ guardado en un archivo de páginas fijas y leído con
+ * {@link FileChannel#map}, para conjuntos de datos más grandes que el heap.
+ *
+ * El archivo se escribe una sola vez con {@link #write} a partir de celdas ya
+ * ordenadas (por ejemplo recorriendo un {@link OrderedCellIndex}) y luego es
+ * de solo lectura. Abrirlo con {@link #open} solo lee la cabecera y mapea el
+ * archivo: no hay que parsear ni reconstruir nada, y el sistema operativo trae
+ * a memoria únicamente las páginas que se tocan.
+ *
+ * Formato (todas las páginas de {@value #PAGE_SIZE} bytes):
+ * - Página 0: cabecera (firma, versión, raíz, altura, primera hoja, etc.).
+ * - Hojas, contiguas y enlazadas: al inicio un arreglo de ranuras (FM +
+ *   posición del registro) ordenado, y los registros de las celdas (ID, ISO3,
+ *   país, mediciones) crecen desde el final de la página.
+ * - Nodos internos: por cada hijo su página y la primera hoja de su
+ *   subárbol, cuya primera celda es el separador (su ISO3 solo se lee para
+ *   desempatar FM iguales en modo compuesto).
+ *
+ * Los nodos internos ya decodificados se guardan en una caché LRU pequeña; las
+ * hojas se leen directamente del mapeo. Las celdas que se retornan son copias
+ * independientes con sus mediciones en F_i. Es seguro leer desde varios hilos.
+ *
+ * @author Rashid
+ */
+public final class DiskBPlusTree implements Closeable, Iterable<Cell> {
+
+    public static final int PAGE_SIZE = 16 * 1024;
+    public static final int DEFAULT_CACHE_PAGES = 256;
+
+    private static final int MAGIC = 0x41564C42; // "AVLB"
+    private static final int VERSION = 1;
+    private static final int LEAF = 1;
+    private static final int INNER = 2;
+
+    // Cabecera de página: tipo, cantidad, siguiente y anterior (hojas) o primer hijo (internos)
+    private static final int PAGE_HEADER = 16;
+    private static final int SLOT_SIZE = 12;        // FM (8) + posición del registro (4)
+    private static final int ENTRY_SIZE = 16;       // FM (8) + hijo (4) + primera hoja del hijo (4)
+    private static final int MAX_CHILDREN = (PAGE_SIZE - PAGE_HEADER) / ENTRY_SIZE + 1;
+    private static final int SEGMENT_PAGES = (1 << 30) / PAGE_SIZE; // páginas por mapeo (1 GiB)
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final boolean compositeKey;
+    private final int rootPage;
+    private final int height;
+    private final int firstLeaf;
+    private final long size;
+    private final Map<Integer, InnerNode> cache;
+
+    /**
+     * Nodo interno decodificado.
+     */
+    private static final class InnerNode {
+
+        final double[] keys;     // FM del separador de cada hijo a partir del segundo
+        final int[] children;
+        final int[] firstLeaves; // primera hoja de cada hijo (para leer el ISO3 del separador)
+
+        InnerNode(double[] keys, int[] children, int[] firstLeaves) {
+            this.keys = keys;
+            this.children = children;
+            this.firstLeaves = firstLeaves;
+        }
+    }
+
+    private DiskBPlusTree(FileChannel channel, MappedByteBuffer[] segments, ByteBuffer header, int cachePages) {
+        this.channel = channel;
+        this.segments = segments;
+        this.compositeKey = header.getInt(8) != 0;
+        this.rootPage = header.getInt(12);
+        this.height = header.getInt(16);
+        this.firstLeaf = header.getInt(20);
+        this.size = header.getLong(24);
+        this.cache = new LinkedHashMap<Integer, InnerNode>(cachePages, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, InnerNode> eldest) {
+                return size() > cachePages;
+            }
+        };
+    }
+
+    // ==================== ESCRITURA ====================
+    /**
+     * Escribe un archivo nuevo con las celdas dadas, que deben venir en orden
+     * de clave y sin repetidas (como las entrega la iteración de un
+     * {@link OrderedCellIndex}). Se procesan de a una, así que no hace falta
+     * tenerlas todas en memoria.
+     *
+     * @param file archivo destino (se reemplaza si existe)
+     * @param cellsInOrder celdas ordenadas por clave
+     * @param compositeKey true si la clave es (FM, ISO3)
+     * @throws IllegalArgumentException si las celdas no están ordenadas o una
+     * no cabe en una página
+     */
+    public static void write(Path file, Iterable<Cell> cellsInOrder, boolean compositeKey) throws IOException {
+        Comparator<Cell> byKey = CellKeyOrder.comparator(compositeKey);
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE);
+            int nextPage = 1; // la 0 es la cabecera
+
+            // Primer nivel del índice: primera FM y página de cada hoja
+            double[] leafKeys = new double[64];
+            int[] leafPages = new int[64];
+            int leafCount = 0;
+            long cellCount = 0;
+
+            int count = 0;
+            int dataStart = PAGE_SIZE; // los registros crecen hacia atrás desde el final
+            Cell previous = null;
+            for (Cell cell : cellsInOrder) {
+                if (previous != null && byKey.compare(previous, cell) >= 0) {
+                    throw new IllegalArgumentException("Las celdas deben venir ordenadas y sin claves repetidas: "
+                            + previous.toStringWithoutID() + " / " + cell.toStringWithoutID());
+                }
+                byte[] record = encode(cell);
+                if (PAGE_HEADER + SLOT_SIZE + record.length > PAGE_SIZE) {
+                    throw new IllegalArgumentException("La celda no cabe en una página: " + cell.toStringWithoutID());
+                }
+                if (PAGE_HEADER + (count + 1) * SLOT_SIZE > dataStart - record.length) {
+                    // Hoja llena: se escribe apuntando a la siguiente, que será la próxima página
+                    writeLeaf(out, page, nextPage, count, nextPage + 1);
+                    nextPage++;
+                    count = 0;
+                    dataStart = PAGE_SIZE;
+                }
+                if (count == 0) {
+                    if (leafCount == leafKeys.length) {
+                        leafKeys = Arrays.copyOf(leafKeys, leafCount * 2);
+                        leafPages = Arrays.copyOf(leafPages, leafCount * 2);
+                    }
+                    leafKeys[leafCount] = cell.FM;
+                    leafPages[leafCount] = nextPage;
+                    leafCount++;
+                    clear(page);
+                }
+                dataStart -= record.length;
+                page.position(dataStart);
+                page.put(record);
+                page.putDouble(PAGE_HEADER + count * SLOT_SIZE, cell.FM);
+                page.putInt(PAGE_HEADER + count * SLOT_SIZE + 8, dataStart);
+                count++;
+                cellCount++;
+                previous = cell;
+            }
+            if (leafCount == 0) {
+                // Archivo vacío: una sola hoja sin celdas
+                clear(page);
+                leafPages[0] = nextPage;
+                leafCount = 1;
+            }
+            writeLeaf(out, page, nextPage, count, -1);
+            nextPage++;
+
+            // Niveles internos, de abajo hacia arriba, hasta que quede una raíz
+            double[] keys = leafKeys;
+            int[] pages = leafPages;
+            int[] firstLeaves = Arrays.copyOf(leafPages, leafCount);
+            int levelCount = leafCount;
+            int levels = 1;
+            while (levelCount > 1) {
+                int parents = (levelCount + MAX_CHILDREN - 1) / MAX_CHILDREN;
+                double[] parentKeys = new double[parents];
+                int[] parentPages = new int[parents];
+                int[] parentFirstLeaves = new int[parents];
+                for (int p = 0; p < parents; p++) {
+                    int from = (int) ((long) levelCount * p / parents);
+                    int to = (int) ((long) levelCount * (p + 1) / parents);
+                    clear(page);
+                    page.putInt(0, INNER);
+                    page.putInt(4, to - from - 1);
+                    page.putInt(8, pages[from]);
+                    page.putInt(12, firstLeaves[from]);
+                    for (int k = from + 1; k < to; k++) {
+                        int at = PAGE_HEADER + (k - from - 1) * ENTRY_SIZE;
+                        page.putDouble(at, keys[k]);
+                        page.putInt(at + 8, pages[k]);
+                        page.putInt(at + 12, firstLeaves[k]);
+                    }
+                    writePage(out, page, nextPage);
+                    parentKeys[p] = keys[from];
+                    parentPages[p] = nextPage;
+                    parentFirstLeaves[p] = firstLeaves[from];
+                    nextPage++;
+                }
+                keys = parentKeys;
+                pages = parentPages;
+                firstLeaves = parentFirstLeaves;
+                levelCount = parents;
+                levels++;
+            }
+
+            clear(page);
+            page.putInt(0, MAGIC);
+            page.putInt(4, VERSION);
+            page.putInt(8, compositeKey ? 1 : 0);
+            page.putInt(12, pages[0]);
+            page.putInt(16, levels);
+            page.putInt(20, leafPages[0]);
+            page.putLong(24, cellCount);
+            page.putInt(32, PAGE_SIZE);
+            writePage(out, page, 0);
+            out.force(true);
+        }
+    }
+
+    private static void clear(ByteBuffer page) {
+        Arrays.fill(page.array(), (byte) 0);
+        page.clear();
+    }
+
+    private static void writeLeaf(FileChannel out, ByteBuffer page, int pageNo, int count, int next) throws IOException {
+        page.putInt(0, LEAF);
+        page.putInt(4, count);
+        page.putInt(8, next);
+        page.putInt(12, pageNo - 1); // anterior (en la primera hoja apunta a la cabecera y no se usa)
+        writePage(out, page, pageNo);
+    }
+
+    private static void writePage(FileChannel out, ByteBuffer page, int pageNo) throws IOException {
+        page.clear();
+        long position = (long) pageNo * PAGE_SIZE;
+        while (page.hasRemaining()) {
+            position += out.write(page, position);
+        }
+    }
+
+    /**
+     * Registro de una celda: ID, ISO3, país y mediciones.
+     */
+    private static byte[] encode(Cell cell) {
+        byte[] iso3 = (cell.ISO3 == null) ? null : cell.ISO3.getBytes(StandardCharsets.UTF_8);
+        byte[] country = (cell.Country == null) ? null : cell.Country.getBytes(StandardCharsets.UTF_8);
+        int measurements = cell.measurementCount();
+        ByteBuffer record = ByteBuffer.allocate(4 + 2 + length(iso3) + 2 + length(country) + 2 + measurements * 8);
+        record.putInt(cell.ObjectId);
+        putString(record, iso3);
+        putString(record, country);
+        record.putShort((short) measurements);
+        for (int i = 0; i < measurements; i++) {
+            record.putDouble(cell.measurement(i));
+        }
+        return record.array();
+    }
+
+    private static int length(byte[] bytes) {
+        return (bytes == null) ? 0 : bytes.length;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putShort((short) -1);
+        } else {
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    // ==================== APERTURA ====================
+    /**
+     * Abre un archivo escrito con {@link #write} con la caché por defecto.
+     */
+    public static DiskBPlusTree open(Path file) throws IOException {
+        return open(file, DEFAULT_CACHE_PAGES);
+    }
+
+    /**
+     * Abre un archivo escrito con {@link #write}. Solo lee la cabecera.
+     *
+     * @param cachePages cantidad de nodos internos decodificados que se
+     * conservan
+     * @throws IOException si no se puede leer o no tiene el formato esperado
+     */
+    public static DiskBPlusTree open(Path file, int cachePages) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long length = channel.size();
+            if (length < PAGE_SIZE || length % PAGE_SIZE != 0) {
+                throw new IOException("Tamaño inválido para un árbol B+ en disco: " + file);
+            }
+            long pages = length / PAGE_SIZE;
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((pages + SEGMENT_PAGES - 1) / SEGMENT_PAGES)];
+            for (int s = 0; s < segments.length; s++) {
+                long start = (long) s * SEGMENT_PAGES * PAGE_SIZE;
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min((long) SEGMENT_PAGES * PAGE_SIZE, length - start));
+            }
+            ByteBuffer header = segments[0].duplicate();
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getInt(32) != PAGE_SIZE) {
+                throw new IOException("El archivo no es un árbol B+ en disco válido: " + file);
+            }
+            return new DiskBPlusTree(channel, segments, header, Math.max(1, cachePages));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // ==================== LECTURA DE PÁGINAS ====================
+    /**
+     * Vista de una página (posiciones absolutas 0..PAGE_SIZE-1).
+     */
+    private ByteBuffer page(int pageNo) {
+        ByteBuffer view = segments[pageNo / SEGMENT_PAGES].duplicate();
+        int offset = (pageNo % SEGMENT_PAGES) * PAGE_SIZE;
+        view.position(offset);
+        view.limit(offset + PAGE_SIZE);
+        return view.slice();
+    }
+
+    private InnerNode inner(int pageNo) {
+        synchronized (cache) {
+            InnerNode node = cache.get(pageNo);
+            if (node != null) {
+                return node;
+            }
+        }
+        ByteBuffer page = page(pageNo);
+        int count = page.getInt(4);
+        double[] keys = new double[count];
+        int[] children = new int[count + 1];
+        int[] firstLeaves = new int[count + 1];
+        children[0] = page.getInt(8);
+        firstLeaves[0] = page.getInt(12);
+        for (int i = 0; i < count; i++) {
+            int at = PAGE_HEADER + i * ENTRY_SIZE;
+            keys[i] = page.getDouble(at);
+            children[i + 1] = page.getInt(at + 8);
+            firstLeaves[i + 1] = page.getInt(at + 12);
+        }
+        InnerNode node = new InnerNode(keys, children, firstLeaves);
+        synchronized (cache) {
+            cache.put(pageNo, node);
+        }
+        return node;
+    }
+
+    private static String readString(ByteBuffer page, int at) {
+        int length = page.getShort(at);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = page.get(at + 2 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int recordOffset(ByteBuffer leaf, int slot) {
+        return leaf.getInt(PAGE_HEADER + slot * SLOT_SIZE + 8);
+    }
+
+    private static double keyAt(ByteBuffer leaf, int slot) {
+        return leaf.getDouble(PAGE_HEADER + slot * SLOT_SIZE);
+    }
+
+    private static String iso3At(ByteBuffer leaf, int slot) {
+        return readString(leaf, recordOffset(leaf, slot) + 4);
+    }
+
+    /**
+     * Reconstruye la celda de una ranura de hoja.
+     */
+    private static Cell decode(ByteBuffer leaf, int slot) {
+        int at = recordOffset(leaf, slot);
+        int objectId = leaf.getInt(at);
+        at += 4;
+        String iso3 = readString(leaf, at);
+        at += 2 + Math.max(0, leaf.getShort(at));
+        String country = readString(leaf, at);
+        at += 2 + Math.max(0, leaf.getShort(at));
+        int measurements = leaf.getShort(at);
+        at += 2;
+        Cell cell = new Cell(objectId, country, iso3, keyAt(leaf, slot));
+        if (measurements > 0) {
+            double[] F_i = new double[measurements];
+            for (int i = 0; i < measurements; i++) {
+                F_i[i] = leaf.getDouble(at + i * 8);
+            }
+            cell.F_i = F_i;
+        }
+        return cell;
+    }
+
+    // ==================== COMPARACIÓN Y NAVEGACIÓN ====================
+    /**
+     * Compara (FM, ISO3) con una clave guardada; el ISO3 de la celda solo se
+     * lee si hace falta desempatar.
+     */
+    private int compare(double FM, String ISO3, double key, ByteBuffer leaf, int slot) {
+        if (FM < key) {
+            return -1;
+        }
+        if (FM > key) {
+            return 1;
+        }
+        if (!compositeKey) {
+            return 0;
+        }
+        String other = iso3At(leaf, slot);
+        if (ISO3 == null || other == null) {
+            return (ISO3 == null) ? ((other == null) ? 0 : -1) : 1;
+        }
+        return ISO3.compareTo(other);
+    }
+
+    /**
+     * Página de la hoja donde está (o estaría) la clave dada.
+     */
+    private int findLeaf(double FM, String ISO3) {
+        int pageNo = rootPage;
+        for (int level = 1; level < height; level++) {
+            InnerNode node = inner(pageNo);
+            int lo = 0;
+            int hi = node.keys.length;
+            while (lo < hi) { // cantidad de separadores menores o iguales a la clave
+                int mid = (lo + hi) >>> 1;
+                if (compare(FM, ISO3, node.keys[mid], page(node.firstLeaves[mid + 1]), 0) >= 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            pageNo = node.children[lo];
+        }
+        return pageNo;
+    }
+
+    private int lowerBound(ByteBuffer leaf, double FM, String ISO3) {
+        int lo = 0;
+        int hi = leaf.getInt(4);
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(FM, ISO3, keyAt(leaf, mid), leaf, mid) > 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // ==================== CONSULTAS ====================
+    public long size() {
+        return size;
+    }
+
+    public boolean isCompositeKey() {
+        return compositeKey;
+    }
+
+    /**
+     * Niveles del árbol (1 si la raíz es una hoja).
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Celda con el FM dado (en modo compuesto, la de menor ISO3), o null.
+     */
+    public Cell find(double FM) {
+        int pageNo = findLeaf(FM, null);
+        ByteBuffer leaf = page(pageNo);
+        int slot = lowerBound(leaf, FM, null);
+        if (slot == leaf.getInt(4)) {
+            int next = leaf.getInt(8);
+            if (next < 0) {
+                return null;
+            }
+            leaf = page(next);
+            slot = 0;
+        }
+        return (slot < leaf.getInt(4) && keyAt(leaf, slot) == FM) ? decode(leaf, slot) : null;
+    }
+
+    /**
+     * Celda con el FM e ISO3 dados, o null.
+     */
+    public Cell find(double FM, String ISO3) {
+        ByteBuffer leaf = page(findLeaf(FM, ISO3));
+        int slot = lowerBound(leaf, FM, ISO3);
+        if (slot < leaf.getInt(4) && compare(FM, ISO3, keyAt(leaf, slot), leaf, slot) == 0
+                && Objects.equals(ISO3, iso3At(leaf, slot))) {
+            return decode(leaf, slot);
+        }
+        return null;
+    }
+
+    /**
+     * Entrega en orden cada celda con FM dentro de [lo, hi] sin juntarlas en
+     * una lista (útil cuando el rango no cabe en memoria).
+     */
+    public void forEachInRange(double lo, double hi, Consumer<Cell> action) {
+        int pageNo = findLeaf(lo, null);
+        ByteBuffer leaf = page(pageNo);
+        int slot = lowerBound(leaf, lo, null);
+        while (true) {
+            int count = leaf.getInt(4);
+            for (; slot < count; slot++) {
+                if (keyAt(leaf, slot) > hi) {
+                    return;
+                }
+                action.accept(decode(leaf, slot));
+            }
+            int next = leaf.getInt(8);
+            if (next < 0) {
+                return;
+            }
+            leaf = page(next);
+            slot = 0;
+        }
+    }
+
+    /**
+     * Celdas con FM dentro del intervalo cerrado [lo, hi], ordenadas.
+     */
+    public List<Cell> rangeQuery(double lo, double hi) {
+        List<Cell> result = new ArrayList<>();
+        forEachInRange(lo, hi, result::add);
+        return result;
+    }
+
+    /**
+     * Recorre todas las celdas en orden leyendo las hojas enlazadas.
+     */
+    @Override
+    public Iterator<Cell> iterator() {
+        return new Iterator<Cell>() {
+            private ByteBuffer leaf = page(firstLeaf);
+            private int slot = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (slot >= leaf.getInt(4)) {
+                    int next = leaf.getInt(8);
+                    if (next < 0) {
+                        return false;
+                    }
+                    leaf = page(next);
+                    slot = 0;
+                }
+                return true;
+            }
+
+            @Override
+            public Cell next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return decode(leaf, slot++);
+            }
+        };
+    }
+}
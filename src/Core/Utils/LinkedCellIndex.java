@@ -0,0 +1,191 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Base de los índices que son árboles binarios de búsqueda con nodos
+ * enlazados ({@link RedBlackCellIndex}, {@link TreapCellIndex}). Implementa
+ * todo lo que solo lee el árbol (búsquedas, rangos, iteración); cada subclase
+ * aporta su inserción y eliminación con su propio balanceo.
+ *
+ * @param <N> tipo de nodo de la subclase
+ * @author Rashid
+ */
+abstract class LinkedCellIndex<N extends LinkedCellIndex.Node<N>> implements OrderedCellIndex {
+
+    /**
+     * Nodo básico: celda e hijos. Las subclases agregan sus datos de balanceo.
+     */
+    abstract static class Node<N extends Node<N>> {
+
+        Cell cell;
+        N left;
+        N right;
+
+        Node(Cell cell) {
+            this.cell = cell;
+        }
+    }
+
+    protected final boolean compositeKey;
+    protected N root;
+    protected int size;
+    protected int modCount;
+
+    protected LinkedCellIndex(boolean compositeKey) {
+        this.compositeKey = compositeKey;
+    }
+
+    protected int compare(double FM, String ISO3, Cell cell) {
+        return CellKeyOrder.compare(FM, ISO3, cell, compositeKey);
+    }
+
+    /**
+     * Elimina la celda con exactamente esa clave, que debe existir.
+     */
+    protected abstract void deleteExisting(double FM, String ISO3);
+
+    @Override
+    public boolean delete(double FM) {
+        Cell found = find(FM);
+        return found != null && delete(found.FM, found.ISO3);
+    }
+
+    @Override
+    public boolean delete(double FM, String ISO3) {
+        if (find(FM, ISO3) == null) {
+            return false;
+        }
+        deleteExisting(FM, ISO3);
+        size--;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public Cell find(double FM) {
+        Cell found = null;
+        N node = root;
+        while (node != null) {
+            if (FM < node.cell.FM) {
+                node = node.left;
+            } else if (FM > node.cell.FM) {
+                node = node.right;
+            } else {
+                found = node.cell;
+                node = node.left; // puede haber uno igual más a la izquierda
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public Cell find(double FM, String ISO3) {
+        N node = root;
+        while (node != null) {
+            int cmp = compare(FM, ISO3, node.cell);
+            if (cmp == 0) {
+                return Objects.equals(ISO3, node.cell.ISO3) ? node.cell : null;
+            }
+            node = (cmp < 0) ? node.left : node.right;
+        }
+        return null;
+    }
+
+    @Override
+    public List<Cell> rangeQuery(double lo, double hi) {
+        List<Cell> result = new ArrayList<>();
+        collectRange(root, lo, hi, result);
+        return result;
+    }
+
+    private void collectRange(N node, double lo, double hi, List<Cell> result) {
+        if (node == null) {
+            return;
+        }
+        if (node.cell.FM >= lo) {
+            collectRange(node.left, lo, hi, result);
+        }
+        if (node.cell.FM >= lo && node.cell.FM <= hi) {
+            result.add(node.cell);
+        }
+        if (node.cell.FM <= hi) {
+            collectRange(node.right, lo, hi, result);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Vacía el índice e inserta las celdas una por una (la primera de cada
+     * clave queda, las repetidas se descartan).
+     */
+    @Override
+    public void buildFrom(Collection<Cell> cells) {
+        root = null;
+        size = 0;
+        modCount++;
+        for (Cell cell : cells) {
+            insert(cell);
+        }
+    }
+
+    @Override
+    public boolean isCompositeKey() {
+        return compositeKey;
+    }
+
+    /**
+     * Iterador inorden con una pila explícita; falla si el índice cambia
+     * mientras se recorre.
+     */
+    @Override
+    public Iterator<Cell> iterator() {
+        return new Iterator<Cell>() {
+            private final List<N> stack = new ArrayList<>();
+            private final int expectedModCount = modCount;
+
+            {
+                pushLeftPath(root);
+            }
+
+            private void pushLeftPath(N node) {
+                while (node != null) {
+                    stack.add(node);
+                    node = node.left;
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !stack.isEmpty();
+            }
+
+            @Override
+            public Cell next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (stack.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                N node = stack.remove(stack.size() - 1);
+                pushLeftPath(node.right);
+                return node.cell;
+            }
+        };
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Utils;
+
+import java.util.Arrays;
+
+/**
+ * Almacén columnar de las mediciones anuales de todas las celdas.
+ *
+ * En lugar de que cada {@link Cell} tenga su propio double[] F_i, cada año es
+ * una columna: un double[] contiguo con la medición de ese año para cada fila.
+ * Una celda solo guarda su número de fila ({@link Cell#row}). Así recorrer un
+ * año completo (promedios, filtros) es una lectura secuencial de un arreglo.
+ *
+ * Las filas sin medición para un año (filas más cortas en el CSV) guardan NaN
+ * en esa columna. Las filas nunca se reutilizan: cuando una celda sale del
+ * árbol su fila queda marcada como inactiva, pero sus datos siguen disponibles
+ * por si la celda vuelve a insertarse.
+ *
+ * Las filas nacen inactivas. Registrado como {@link TreeListener} del árbol,
+ * el almacén activa la fila de cada celda que el árbol acepta y la desactiva
+ * cuando sale, para que los cálculos por columna solo cuenten las celdas que
+ * están en el árbol (una celda rechazada por clave repetida nunca se cuenta).
+ *
+ * @author Rashid
+ */
+public class MeasurementStore implements TreeListener {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int yearCount;
+    private final double[][] columns; // columns[año][fila]
+    private int[] lengths;            // cantidad de mediciones de cada fila
+    private boolean[] live;           // la fila pertenece a una celda que está en el árbol
+    private int rowCount;
+    private int liveCount;
+
+    /**
+     * @param yearCount cantidad de columnas (años)
+     */
+    public MeasurementStore(int yearCount) {
+        this(yearCount, INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param yearCount cantidad de columnas (años)
+     * @param capacity filas para las que se reserva espacio inicial
+     */
+    public MeasurementStore(int yearCount, int capacity) {
+        capacity = Math.max(1, capacity);
+        this.yearCount = yearCount;
+        this.columns = new double[yearCount][capacity];
+        this.lengths = new int[capacity];
+        this.live = new boolean[capacity];
+    }
+
+    // ==================== FILAS ====================
+    /**
+     * Agrega una fila copiando las mediciones dadas. La fila queda inactiva
+     * hasta que el árbol avise que su celda fue insertada.
+     *
+     * @param values mediciones de la fila (pueden ser menos que las columnas)
+     * @param count cantidad de valores de {@code values} a copiar
+     * @return número de la nueva fila
+     */
+    public int addRow(double[] values, int count) {
+        if (count > yearCount) {
+            throw new IllegalArgumentException("La fila tiene " + count + " mediciones y el almacén " + yearCount + " columnas");
+        }
+        if (rowCount == lengths.length) {
+            grow();
+        }
+        int row = rowCount++;
+        for (int y = 0; y < yearCount; y++) {
+            columns[y][row] = (y < count) ? values[y] : Double.NaN;
+        }
+        lengths[row] = count;
+        return row;
+    }
+
+    /**
+     * Guarda las mediciones en una fila nueva y asocia la celda a ella.
+     */
+    public void attach(Cell cell, double[] values) {
+        cell.row = addRow(values, values.length);
+        cell.store = this;
+    }
+
+    private void grow() {
+        int capacity = lengths.length + (lengths.length >> 1) + 1;
+        for (int y = 0; y < yearCount; y++) {
+            columns[y] = Arrays.copyOf(columns[y], capacity);
+        }
+        lengths = Arrays.copyOf(lengths, capacity);
+        live = Arrays.copyOf(live, capacity);
+    }
+
+    // ==================== LECTURA ====================
+    public int yearCount() {
+        return yearCount;
+    }
+
+    /**
+     * Cantidad de filas usadas (activas o no).
+     */
+    public int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Cantidad de filas activas.
+     */
+    public int liveCount() {
+        return liveCount;
+    }
+
+    /**
+     * Cantidad de mediciones de una fila.
+     */
+    public int length(int row) {
+        return lengths[row];
+    }
+
+    /**
+     * Medición de una fila en una posición de año (NaN si la fila no la tiene).
+     */
+    public double get(int row, int position) {
+        return columns[position][row];
+    }
+
+    /**
+     * Arreglo interno de una columna. Solo las primeras {@link #rowCount()}
+     * posiciones son válidas y no debe modificarse.
+     */
+    public double[] column(int position) {
+        return columns[position];
+    }
+
+    /**
+     * Resumen (cantidad, promedio, mínimo, máximo, varianza) de cada año sobre
+     * las filas activas, calculado en una sola pasada por
+     * {@link YearlyStatsKernel}. La posición i del arreglo es el año i.
+     * {@link YearlyAggregates} lo usa para recalcularse en las cargas masivas.
+     */
+    public CellStats[] yearlyStats() {
+        return YearlyStatsKernel.compute(columns, live, rowCount);
+    }
+
+    // ==================== SINCRONIZACIÓN CON EL ÁRBOL ====================
+    private void setLive(Cell cell, boolean value) {
+        if (cell.store != this || live[cell.row] == value) {
+            return;
+        }
+        live[cell.row] = value;
+        liveCount += value ? 1 : -1;
+    }
+
+    @Override
+    public void cellInserted(Cell cell) {
+        setLive(cell, true);
+    }
+
+    @Override
+    public void cellRemoved(Cell cell) {
+        setLive(cell, false);
+    }
+
+    @Override
+    public void treeRebuilt(SelfBalancingBST tree) {
+        Arrays.fill(live, 0, rowCount, false);
+        liveCount = 0;
+        for (Cell cell : tree) {
+            setLive(cell, true);
+        }
+    }
+}
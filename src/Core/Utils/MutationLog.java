@@ -0,0 +1,451 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Registro de escritura anticipada (WAL) de las inserciones y eliminaciones
+ * de un árbol, para no perderlas al cerrar el programa.
+ *
+ * Se registra como {@link TreeListener} del árbol y agrega un registro por
+ * cada cambio al archivo data.csv.wal junto al CSV. Cada registro lleva su
+ * largo y un CRC32; al abrir el registro se vuelven a aplicar sobre la base
+ * hasta el primer registro incompleto o dañado, que se descarta junto con lo
+ * que le sigue. La base es el último punto de control (data.csv.ckpt) si
+ * existe, o lo cargado del CSV si todavía no se hizo ninguno.
+ *
+ * Confirmación en grupo: los registros se juntan en un buffer que se escribe
+ * al llenarse, y cada {@value #GROUP_MILLIS} ms un hilo aparte confirma todo
+ * lo escrito con un solo fsync. El fsync se hace fuera del lock del registro,
+ * así que insertar o eliminar no espera al disco: los cambios que llegan
+ * mientras tanto se juntan para la siguiente confirmación. Ante una caída se
+ * pueden perder como mucho los cambios de ese último intervalo;
+ * {@link #sync()} fuerza la escritura inmediata.
+ *
+ * Cuando el registro acumula {@value #CHECKPOINT_RECORDS} registros o tantos
+ * como celdas tiene el árbol, lo que sea mayor, se hace un punto de control:
+ * se guarda el árbol entero en data.csv.ckpt y el registro se vacía. Ese
+ * archivo es propio del registro y no depende de la fecha del CSV: el
+ * {@link CellSnapshot} del CSV es solo una copia descartable que se reescribe
+ * cuando el CSV cambia, así que no sirve para guardar cambios. El costo de
+ * guardar el árbol se reparte entre al menos tantos cambios como celdas
+ * tiene. Una reconstrucción completa del árbol (buildFrom, operaciones
+ * de conjuntos, lotes grandes) no se puede expresar como cambios y también
+ * hace un punto de control, que escribe el árbol entero y espera dos fsync en
+ * el hilo que reconstruye; por eso deshacer un cambio en la interfaz aplica la
+ * operación inversa en lugar de reconstruir.
+ *
+ * @author Rashid
+ */
+public final class MutationLog implements TreeListener, Closeable {
+
+    public static final String EXTENSION = ".wal";
+    public static final String CHECKPOINT_EXTENSION = ".ckpt";
+    public static final int GROUP_MILLIS = 10;
+    public static final int CHECKPOINT_RECORDS = 10_000;
+
+    private static final byte INSERT = 1;
+    private static final byte DELETE = 2;
+    private static final int GROUP_BYTES = 64 * 1024;
+    private static final int FRAME_HEADER = 8; // largo (4) + CRC32 (4)
+
+    private final String csvPath;
+    private final SelfBalancingBST tree;
+    private final FileChannel channel;
+    private final ByteBuffer pending = ByteBuffer.allocateDirect(GROUP_BYTES);
+    private final CRC32 crc = new CRC32();
+    private final ScheduledExecutorService flusher;
+    private final Object forceLock = new Object(); // un fsync a la vez, sin tomar el lock del registro
+    private int records;
+    private boolean unsynced; // hay datos escritos que todavía no pasaron por fsync
+
+    private MutationLog(String csvPath, SelfBalancingBST tree, FileChannel channel, int records) {
+        this.csvPath = csvPath;
+        this.tree = tree;
+        this.channel = channel;
+        this.records = records;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "wal-group-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::commitQuietly, GROUP_MILLIS, GROUP_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Ruta del registro que corresponde a un CSV.
+     */
+    public static Path pathFor(String csvPath) {
+        return Paths.get(csvPath + EXTENSION);
+    }
+
+    /**
+     * Ruta del último punto de control del registro de un CSV.
+     */
+    public static Path checkpointPathFor(String csvPath) {
+        return Paths.get(csvPath + CHECKPOINT_EXTENSION);
+    }
+
+    // ==================== APERTURA Y RECUPERACIÓN ====================
+    /**
+     * Abre (o crea) el registro del CSV, aplica al árbol los cambios que ya
+     * tenía y empieza a registrar los nuevos.
+     *
+     * Si hay un punto de control, el árbol se recarga con él antes de aplicar
+     * el registro: lo cargado del CSV solo vale hasta el primer punto de
+     * control. Si el CSV cambió después de ese punto de control se avisa y se
+     * conserva el punto de control; si no se puede leer, no se abre el
+     * registro (y no se toca ningún archivo) para no perder esos cambios.
+     *
+     * @param csvPath ruta del CSV cuya base ya está cargada en el árbol
+     * @param tree árbol con la base cargada
+     * @param store almacén para las mediciones de las celdas recuperadas, o
+     * null para dejarlas en F_i
+     * @return el registro, ya suscrito al árbol
+     */
+    public static MutationLog open(String csvPath, SelfBalancingBST tree, MeasurementStore store) throws IOException {
+        Path checkpoint = checkpointPathFor(csvPath);
+        if (Files.isRegularFile(checkpoint)) {
+            if (!CellSnapshot.isCurrent(checkpoint, Paths.get(csvPath))) {
+                System.out.println("Aviso: " + csvPath + " cambió después del último punto de control;"
+                        + " se conservan los cambios guardados y no se usa el CSV");
+            }
+            tree.buildFrom(CellSnapshot.read(checkpoint, store));
+        }
+        FileChannel channel = FileChannel.open(pathFor(csvPath), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            int records = replay(channel, tree, store);
+            MutationLog log = new MutationLog(csvPath, tree, channel, records);
+            tree.addListener(log);
+            return log;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Aplica los registros válidos y corta el archivo después del último.
+     *
+     * @return cantidad de registros aplicados
+     */
+    private static int replay(FileChannel channel, SelfBalancingBST tree, MeasurementStore store) throws IOException {
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER);
+        CRC32 crc = new CRC32();
+        long position = 0;
+        long size = channel.size();
+        int records = 0;
+        while (position + FRAME_HEADER <= size) {
+            frame.clear();
+            readFully(channel, frame, position);
+            int length = frame.getInt(0);
+            if (length <= 0 || position + FRAME_HEADER + length > size) {
+                break; // registro incompleto: la escritura se cortó
+            }
+            ByteBuffer record = ByteBuffer.allocate(length);
+            readFully(channel, record, position + FRAME_HEADER);
+            crc.reset();
+            crc.update(record.array(), 0, length);
+            if ((int) crc.getValue() != frame.getInt(4)) {
+                break;
+            }
+            record.flip();
+            apply(record, tree, store);
+            position += FRAME_HEADER + length;
+            records++;
+        }
+        if (position < size) {
+            System.out.println("Registro de cambios: se descartan " + (size - position) + " bytes dañados al final");
+            channel.truncate(position);
+        }
+        channel.position(position);
+        return records;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Fin inesperado del registro de cambios");
+            }
+        }
+    }
+
+    private static void apply(ByteBuffer record, SelfBalancingBST tree, MeasurementStore store) {
+        byte type = record.get();
+        if (type == INSERT) {
+            int objectId = record.getInt();
+            double FM = record.getDouble();
+            String iso3 = getString(record);
+            String country = getString(record);
+            double[] values = new double[record.getShort()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = record.getDouble();
+            }
+            boolean exists = tree.isCompositeKey() ? tree.find(FM, iso3) != null : tree.find(FM) != null;
+            if (exists) {
+                return; // ya estaba en la base (el snapshot se guardó antes de vaciar el registro)
+            }
+            Cell cell = new Cell(objectId, country, iso3, FM);
+            if (store != null) {
+                store.attach(cell, values);
+            } else if (values.length > 0) {
+                cell.F_i = values;
+            }
+            tree.insert(cell);
+        } else if (type == DELETE) {
+            double FM = record.getDouble();
+            String iso3 = getString(record);
+            if (tree.isCompositeKey()) {
+                tree.delete(FM, iso3);
+            } else {
+                tree.delete(FM);
+            }
+        }
+    }
+
+    // ==================== REGISTRO DE CAMBIOS ====================
+    @Override
+    public void cellInserted(Cell cell) {
+        byte[] iso3 = bytes(cell.ISO3);
+        byte[] country = bytes(cell.Country);
+        int measurements = cell.measurementCount();
+        ByteBuffer record = ByteBuffer.allocate(1 + 4 + 8 + 2 + length(iso3) + 2 + length(country) + 2 + measurements * 8);
+        record.put(INSERT);
+        record.putInt(cell.ObjectId);
+        record.putDouble(cell.FM);
+        putString(record, iso3);
+        putString(record, country);
+        record.putShort((short) measurements);
+        for (int i = 0; i < measurements; i++) {
+            record.putDouble(cell.measurement(i));
+        }
+        append(record.array());
+    }
+
+    @Override
+    public void cellRemoved(Cell cell) {
+        byte[] iso3 = bytes(cell.ISO3);
+        ByteBuffer record = ByteBuffer.allocate(1 + 8 + 2 + length(iso3));
+        record.put(DELETE);
+        record.putDouble(cell.FM);
+        putString(record, iso3);
+        append(record.array());
+    }
+
+    /**
+     * Una reconstrucción completa no se puede registrar como cambio: se guarda
+     * el árbol entero con un punto de control (snapshot completo y dos fsync).
+     */
+    @Override
+    public void treeRebuilt(SelfBalancingBST tree) {
+        checkpoint();
+    }
+
+    /**
+     * Agrega un registro al grupo pendiente. Un error de escritura se informa
+     * pero no deshace el cambio ya hecho en el árbol.
+     */
+    private synchronized void append(byte[] record) {
+        crc.reset();
+        crc.update(record, 0, record.length);
+        try {
+            if (pending.remaining() < FRAME_HEADER + record.length) {
+                drain(); // el fsync queda para la próxima confirmación del grupo
+            }
+            if (FRAME_HEADER + record.length > pending.capacity()) {
+                // No entra en el buffer: se escribe directo
+                ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER + record.length);
+                frame.putInt(record.length).putInt((int) crc.getValue()).put(record);
+                frame.flip();
+                write(frame);
+            } else {
+                pending.putInt(record.length).putInt((int) crc.getValue()).put(record);
+            }
+        } catch (UncheckedIOException e) {
+            System.out.println("No se pudo escribir el registro de cambios: " + e.getCause().getMessage());
+        }
+        if (++records >= Math.max(CHECKPOINT_RECORDS, tree.size())) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Escribe los registros pendientes y espera a que lleguen al disco. Solo
+     * el paso al archivo se hace con el lock; el fsync se hace afuera para que
+     * los cambios que llegan mientras tanto no esperen al disco.
+     */
+    public void sync() {
+        // Si otro hilo está en un fsync, se espera a que termine: puede estar
+        // confirmando lo que este hilo escribió
+        synchronized (forceLock) {
+            synchronized (this) {
+                if (!channel.isOpen()) {
+                    return;
+                }
+                drain();
+                if (!unsynced) {
+                    return;
+                }
+                unsynced = false; // lo que se escriba desde aquí espera al próximo fsync
+            }
+            try {
+                channel.force(false); // un solo fsync para todo el grupo
+            } catch (ClosedChannelException e) {
+                // Se cerró mientras tanto: close() ya confirmó lo pendiente
+            } catch (IOException e) {
+                synchronized (this) {
+                    unsynced = true;
+                }
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void commitQuietly() {
+        try {
+            sync();
+        } catch (UncheckedIOException e) {
+            System.out.println("No se pudo escribir el registro de cambios: " + e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Como {@link #sync()}, pero todo con el lock tomado. Solo para cerrar.
+     */
+    private void commit() {
+        if (!channel.isOpen()) {
+            return;
+        }
+        drain();
+        if (!unsynced) {
+            return;
+        }
+        try {
+            channel.force(false); // un solo fsync para todo el grupo
+            unsynced = false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Pasa los registros pendientes al archivo sin esperar al disco.
+     */
+    private void drain() {
+        if (pending.position() == 0) {
+            return;
+        }
+        pending.flip();
+        write(pending);
+        pending.clear();
+    }
+
+    private void write(ByteBuffer buffer) {
+        unsynced = true;
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // ==================== PUNTO DE CONTROL ====================
+    /**
+     * Guarda el árbol actual como punto de control y vacía el registro. Si se
+     * corta entre ambos pasos, al abrir se vuelven a aplicar cambios que ya
+     * están en el punto de control: las inserciones ya presentes se saltan y las
+     * eliminaciones no encuentran la celda, así que el resultado no cambia.
+     */
+    public synchronized void checkpoint() {
+        try {
+            CellSnapshot.write(checkpointPathFor(csvPath), tree, Paths.get(csvPath));
+            pending.clear(); // el punto de control ya incluye lo que faltaba escribir
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(true);
+            unsynced = false;
+            records = 0;
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("No se pudo hacer el punto de control: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cantidad de registros desde el último punto de control.
+     */
+    public synchronized int pendingRecords() {
+        return records;
+    }
+
+    /**
+     * Confirma lo pendiente, deja de registrar cambios y cierra el archivo.
+     */
+    @Override
+    public void close() throws IOException {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS); // que no quede un fsync en curso
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            tree.removeListener(this);
+            try {
+                commit();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    // ==================== CODIFICACIÓN ====================
+    private static byte[] bytes(String text) {
+        return (text == null) ? null : text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] bytes) {
+        return (bytes == null) ? 0 : bytes.length;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putShort((short) -1);
+        } else {
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
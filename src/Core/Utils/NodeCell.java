@@ -11,8 +11,11 @@ package Core.Utils;
 
 /**
  * Nodo que se utiliza en el Árbol AVL. Contiene la información de un país
- * (Cell), enlaces a subárboles izquierdo y derecho, y el valor de balance
- * (altura relativa de los subárboles).
+ * (Cell), enlaces a subárboles izquierdo y derecho, la altura y el tamaño del
+ * subárbol, y el valor de balance (altura relativa de los subárboles).
+ *
+ * La altura se guarda en el nodo para que el AVL no tenga que recalcularla
+ * recorriendo los subárboles en cada inserción o eliminación.
  *
  * @author Rashid
  */
@@ -23,6 +26,9 @@ public class NodeCell {
     public NodeCell left;   // Hijo izquierdo
     public NodeCell right;  // Hijo derecho
     public int balance;     // Factor de balanceo (AVL)
+    public int height;      // Altura del subárbol con raíz en este nodo (hoja = 1)
+    public int size;        // Cantidad de nodos del subárbol con raíz en este nodo
+    public Object summary;  // Resumen agregado del subárbol (solo lo usa AggregateBST)
 
     /**
      * Constructor para crear un nodo hoja.
@@ -34,6 +40,8 @@ public class NodeCell {
         this.left = null;
         this.right = null;
         this.balance = 0; // Siempre inicia balanceado
+        this.height = 1;  // Un nodo hoja tiene altura 1
+        this.size = 1;
     }
 
     /**
@@ -47,6 +55,10 @@ public class NodeCell {
         this.cell = cell;
         this.left = left;
         this.right = right;
-        this.balance = 0; // Siempre inicia balanceado
+        int leftHeight = (left != null) ? left.height : 0;
+        int rightHeight = (right != null) ? right.height : 0;
+        this.height = 1 + Math.max(leftHeight, rightHeight);
+        this.balance = leftHeight - rightHeight;
+        this.size = 1 + ((left != null) ? left.size : 0) + ((right != null) ? right.size : 0);
     }
 }
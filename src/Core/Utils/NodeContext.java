@@ -0,0 +1,40 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Utils;
+
+/**
+ * Posición de un nodo dentro del árbol: su nivel, su factor de balance y sus
+ * parientes cercanos. Se arma con el camino desde la raíz que ya recorrió la
+ * búsqueda, así que obtener todo junto cuesta un solo descenso.
+ *
+ * @author Rashid
+ */
+public final class NodeContext {
+
+    public final NodeCell node;        // Nodo consultado
+    public final int level;            // Nivel del nodo (la raíz está en el nivel 1)
+    public final int balance;          // Altura izquierda - altura derecha
+    public final NodeCell parent;      // null si el nodo es la raíz
+    public final NodeCell grandparent; // null si no tiene
+    public final NodeCell uncle;       // Hermano del padre, null si no tiene
+
+    /**
+     * @param path nodos desde la raíz hasta el consultado
+     * @param index posición del nodo consultado dentro del camino
+     * @param balance factor de balance del nodo
+     */
+    NodeContext(NodeCell[] path, int index, int balance) {
+        this.node = path[index];
+        this.level = index + 1;
+        this.balance = balance;
+        this.parent = (index >= 1) ? path[index - 1] : null;
+        this.grandparent = (index >= 2) ? path[index - 2] : null;
+        if (grandparent == null) {
+            this.uncle = null;
+        } else {
+            this.uncle = (grandparent.left == parent) ? grandparent.right : grandparent.left;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Interface.java to edit this template
+ */
+package Core.Utils;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Índice ordenado de celdas, independiente de la estructura que lo implemente
+ * (AVL, rojinegro, treap, skip list, ...). Las celdas se ordenan por FM y, en
+ * modo de clave compuesta, por ISO3 ante empates; las claves repetidas se
+ * descartan.
+ *
+ * Las implementaciones se eligen por configuración con
+ * {@link OrderedCellIndexes}. La iteración recorre las celdas en orden.
+ *
+ * @author Rashid
+ */
+public interface OrderedCellIndex extends Iterable<Cell> {
+
+    /**
+     * Inserta una celda.
+     *
+     * @return true si se insertó, false si la clave ya existía
+     */
+    boolean insert(Cell cell);
+
+    /**
+     * Elimina la celda con el FM dado (en modo compuesto, la de menor ISO3).
+     *
+     * @return true si se eliminó
+     */
+    boolean delete(double FM);
+
+    /**
+     * Elimina la celda con el FM e ISO3 dados.
+     *
+     * @return true si se eliminó
+     */
+    boolean delete(double FM, String ISO3);
+
+    /**
+     * Celda con el FM dado (en modo compuesto, la de menor ISO3), o null.
+     */
+    Cell find(double FM);
+
+    /**
+     * Celda con el FM e ISO3 dados, o null.
+     */
+    Cell find(double FM, String ISO3);
+
+    /**
+     * Celdas con FM dentro del intervalo cerrado [lo, hi], ordenadas.
+     */
+    List<Cell> rangeQuery(double lo, double hi);
+
+    /**
+     * Cantidad de celdas.
+     */
+    int size();
+
+    /**
+     * Reemplaza el contenido por las celdas dadas; ante claves repetidas se
+     * conserva la primera.
+     */
+    void buildFrom(Collection<Cell> cells);
+
+    /**
+     * Indica si la clave es (FM, ISO3) en lugar de solo FM.
+     */
+    boolean isCompositeKey();
+}
@@ -0,0 +1,82 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Fábrica de {@link OrderedCellIndex}: crea la estructura indicada por nombre
+ * o por configuración.
+ *
+ * La configuración se lee de la propiedad del sistema {@value #BACKEND_PROPERTY}
+ * (por ejemplo {@code java -Dcells.index=treap ...}); si no está definida se
+ * usa el AVL.
+ *
+ * @author Rashid
+ */
+public final class OrderedCellIndexes {
+
+    /**
+     * Propiedad del sistema con el nombre de la estructura a usar.
+     */
+    public static final String BACKEND_PROPERTY = "cells.index";
+
+    public static final String AVL = "avl";
+    public static final String RED_BLACK = "redblack";
+    public static final String TREAP = "treap";
+    public static final String SKIP_LIST = "skiplist";
+    public static final String B_PLUS_TREE = "bplustree";
+
+    private static final List<String> BACKENDS = Collections.unmodifiableList(
+            Arrays.asList(AVL, RED_BLACK, TREAP, SKIP_LIST, B_PLUS_TREE));
+
+    private OrderedCellIndexes() {
+    }
+
+    /**
+     * Nombres de todas las estructuras disponibles.
+     */
+    public static List<String> backends() {
+        return BACKENDS;
+    }
+
+    /**
+     * Crea la estructura configurada en {@value #BACKEND_PROPERTY} (AVL si no
+     * hay ninguna).
+     *
+     * @param compositeKey true para usar la clave (FM, ISO3)
+     */
+    public static OrderedCellIndex fromConfig(boolean compositeKey) {
+        return create(System.getProperty(BACKEND_PROPERTY, AVL), compositeKey);
+    }
+
+    /**
+     * Crea una estructura por nombre (sin distinguir mayúsculas).
+     *
+     * @param backend uno de {@link #backends()}
+     * @param compositeKey true para usar la clave (FM, ISO3)
+     * @throws IllegalArgumentException si el nombre no corresponde a ninguna
+     */
+    public static OrderedCellIndex create(String backend, boolean compositeKey) {
+        switch (backend.trim().toLowerCase(Locale.ROOT)) {
+            case AVL:
+                return new SelfBalancingBST(compositeKey);
+            case RED_BLACK:
+                return new RedBlackCellIndex(compositeKey);
+            case TREAP:
+                return new TreapCellIndex(compositeKey);
+            case SKIP_LIST:
+                return new SkipListCellIndex(compositeKey);
+            case B_PLUS_TREE:
+                return new BPlusTreeCellIndex(compositeKey);
+            default:
+                throw new IllegalArgumentException("Estructura desconocida: " + backend
+                        + " (disponibles: " + BACKENDS + ")");
+        }
+    }
+}
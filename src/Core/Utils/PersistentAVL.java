@@ -0,0 +1,315 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Utils;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Árbol AVL persistente (inmutable) con el mismo orden que
+ * {@link SelfBalancingBST}.
+ *
+ * Insertar o eliminar no modifica el árbol: retorna una versión nueva que
+ * copia solo los O(log n) nodos del camino desde la raíz y comparte el resto
+ * con la versión anterior. Cada versión es una instantánea consistente que
+ * puede recorrerse desde cualquier hilo mientras se crean otras, y guardar
+ * versiones anteriores (para deshacer cambios) cuesta O(log n) por cambio.
+ *
+ * Los nodos son {@link NodeCell} normales para que el código que recorre
+ * nodos pueda reutilizarse, pero nunca se modifican después de creados: quien
+ * los reciba con {@link #root()} no debe cambiarlos.
+ *
+ * @author Rashid
+ */
+public final class PersistentAVL implements Iterable<Cell> {
+
+    private static final PersistentAVL EMPTY_SIMPLE = new PersistentAVL(null, false);
+    private static final PersistentAVL EMPTY_COMPOSITE = new PersistentAVL(null, true);
+
+    private final NodeCell root;
+    private final boolean compositeKey;
+
+    private PersistentAVL(NodeCell root, boolean compositeKey) {
+        this.root = root;
+        this.compositeKey = compositeKey;
+    }
+
+    /**
+     * Árbol vacío.
+     *
+     * @param compositeKey true para ordenar por (FM, ISO3) como
+     * {@link SelfBalancingBST#SelfBalancingBST(boolean)}
+     */
+    public static PersistentAVL empty(boolean compositeKey) {
+        return compositeKey ? EMPTY_COMPOSITE : EMPTY_SIMPLE;
+    }
+
+    /**
+     * Versión persistente con el contenido actual de un árbol mutable, armada
+     * en O(n) a partir de su recorrido inorden.
+     */
+    public static PersistentAVL fromTree(SelfBalancingBST tree) {
+        List<Cell> sorted = tree.inOrderAdding();
+        return new PersistentAVL(build(sorted, 0, sorted.size()), tree.isCompositeKey());
+    }
+
+    private static NodeCell build(List<Cell> sorted, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        return new NodeCell(sorted.get(mid), build(sorted, from, mid), build(sorted, mid + 1, to));
+    }
+
+    // ==================== COMPARACIÓN DE CLAVES ====================
+    /**
+     * Compara una clave (FM, ISO3) contra una celda, igual que
+     * {@link SelfBalancingBST}: en modo simple el ISO3 se ignora.
+     */
+    private int compareKey(double FM, String ISO3, Cell cell) {
+        return CellKeyOrder.compare(FM, ISO3, cell, compositeKey);
+    }
+
+    // ==================== BALANCEO CON COPIA ====================
+    private static int heightOf(NodeCell node) {
+        return (node == null) ? 0 : node.height;
+    }
+
+    /**
+     * Crea un nodo nuevo con la celda e hijos dados, rotando si la diferencia
+     * de alturas pasa de 1. Solo se crean nodos nuevos; los hijos se
+     * comparten.
+     */
+    private static NodeCell balanced(Cell cell, NodeCell left, NodeCell right) {
+        int leftHeight = heightOf(left);
+        int rightHeight = heightOf(right);
+        if (leftHeight > rightHeight + 1) {
+            if (heightOf(left.left) >= heightOf(left.right)) {
+                // Rotación simple a la derecha
+                return new NodeCell(left.cell, left.left, new NodeCell(cell, left.right, right));
+            }
+            // Rotación doble izquierda-derecha
+            NodeCell pivot = left.right;
+            return new NodeCell(pivot.cell,
+                    new NodeCell(left.cell, left.left, pivot.left),
+                    new NodeCell(cell, pivot.right, right));
+        }
+        if (rightHeight > leftHeight + 1) {
+            if (heightOf(right.right) >= heightOf(right.left)) {
+                // Rotación simple a la izquierda
+                return new NodeCell(right.cell, new NodeCell(cell, left, right.left), right.right);
+            }
+            // Rotación doble derecha-izquierda
+            NodeCell pivot = right.left;
+            return new NodeCell(pivot.cell,
+                    new NodeCell(cell, left, pivot.left),
+                    new NodeCell(right.cell, pivot.right, right.right));
+        }
+        return new NodeCell(cell, left, right);
+    }
+
+    // ==================== INSERCIÓN ====================
+    /**
+     * Versión con la celda insertada. Si la clave ya existe retorna esta misma
+     * versión.
+     */
+    public PersistentAVL insert(Cell cell) {
+        NodeCell newRoot = insert(root, cell);
+        return (newRoot == root) ? this : new PersistentAVL(newRoot, compositeKey);
+    }
+
+    private NodeCell insert(NodeCell node, Cell cell) {
+        if (node == null) {
+            return new NodeCell(cell);
+        }
+        int cmp = compareKey(cell.FM, cell.ISO3, node.cell);
+        if (cmp == 0) {
+            return node; // clave duplicada → no insertamos
+        }
+        if (cmp < 0) {
+            NodeCell left = insert(node.left, cell);
+            return (left == node.left) ? node : balanced(node.cell, left, node.right);
+        }
+        NodeCell right = insert(node.right, cell);
+        return (right == node.right) ? node : balanced(node.cell, node.left, right);
+    }
+
+    // ==================== ELIMINACIÓN ====================
+    /**
+     * Versión sin la celda con el FM dado (en modo compuesto, la de menor
+     * ISO3). Si no existe retorna esta misma versión.
+     */
+    public PersistentAVL delete(double FM) {
+        Cell found = search(FM);
+        return (found == null) ? this : delete(found.FM, found.ISO3);
+    }
+
+    /**
+     * Versión sin la celda con el FM e ISO3 dados. Si no existe retorna esta
+     * misma versión.
+     */
+    public PersistentAVL delete(double FM, String ISO3) {
+        if (search(FM, ISO3) == null) {
+            return this;
+        }
+        return new PersistentAVL(delete(root, FM, ISO3), compositeKey);
+    }
+
+    private NodeCell delete(NodeCell node, double FM, String ISO3) {
+        int cmp = compareKey(FM, ISO3, node.cell);
+        if (cmp < 0) {
+            return balanced(node.cell, delete(node.left, FM, ISO3), node.right);
+        }
+        if (cmp > 0) {
+            return balanced(node.cell, node.left, delete(node.right, FM, ISO3));
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        // Dos hijos: el sucesor ocupa el lugar del nodo eliminado
+        NodeCell successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balanced(successor.cell, node.left, deleteMin(node.right));
+    }
+
+    private NodeCell deleteMin(NodeCell node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balanced(node.cell, deleteMin(node.left), node.right);
+    }
+
+    // ==================== BÚSQUEDA ====================
+    /**
+     * Celda con el FM dado (en modo compuesto, la de menor ISO3), o null.
+     */
+    public Cell search(double FM) {
+        Cell found = null;
+        NodeCell node = root;
+        while (node != null) {
+            if (FM < node.cell.FM) {
+                node = node.left;
+            } else if (FM > node.cell.FM) {
+                node = node.right;
+            } else {
+                found = node.cell;
+                node = node.left; // puede haber uno igual más a la izquierda
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Celda con el FM e ISO3 dados, o null.
+     */
+    public Cell search(double FM, String ISO3) {
+        NodeCell node = root;
+        while (node != null) {
+            int cmp = compareKey(FM, ISO3, node.cell);
+            if (cmp == 0) {
+                return Objects.equals(ISO3, node.cell.ISO3) ? node.cell : null;
+            }
+            node = (cmp < 0) ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * Celdas con FM dentro del intervalo cerrado [lo, hi], ordenadas.
+     */
+    public List<Cell> rangeQuery(double lo, double hi) {
+        List<Cell> result = new ArrayList<>();
+        collectRange(root, lo, hi, result);
+        return result;
+    }
+
+    private void collectRange(NodeCell node, double lo, double hi, List<Cell> result) {
+        if (node == null) {
+            return;
+        }
+        if (node.cell.FM >= lo) {
+            collectRange(node.left, lo, hi, result);
+        }
+        if (node.cell.FM >= lo && node.cell.FM <= hi) {
+            result.add(node.cell);
+        }
+        if (node.cell.FM <= hi) {
+            collectRange(node.right, lo, hi, result);
+        }
+    }
+
+    // ==================== CONSULTAS GENERALES ====================
+    /**
+     * Raíz de esta versión (no debe modificarse).
+     */
+    public NodeCell root() {
+        return root;
+    }
+
+    public boolean isCompositeKey() {
+        return compositeKey;
+    }
+
+    public int size() {
+        return (root == null) ? 0 : root.size;
+    }
+
+    public int getHeight() {
+        return heightOf(root);
+    }
+
+    /**
+     * Celdas de esta versión en orden.
+     */
+    public List<Cell> inOrderAdding() {
+        List<Cell> result = new ArrayList<>(size());
+        for (Cell cell : this) {
+            result.add(cell);
+        }
+        return result;
+    }
+
+    /**
+     * Iterador inorden. Como la versión es inmutable, no puede invalidarse.
+     */
+    @Override
+    public Iterator<Cell> iterator() {
+        return new Iterator<Cell>() {
+            private final NodeCell[] stack = new NodeCell[Math.max(1, getHeight())];
+            private int top = pushLeftPath(root, 0);
+
+            private int pushLeftPath(NodeCell node, int at) {
+                while (node != null) {
+                    stack[at++] = node;
+                    node = node.left;
+                }
+                return at;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return top > 0;
+            }
+
+            @Override
+            public Cell next() {
+                if (top == 0) {
+                    throw new NoSuchElementException();
+                }
+                NodeCell node = stack[--top];
+                top = pushLeftPath(node.right, top);
+                return node.cell;
+            }
+        };
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Utils;
+
+/**
+ * Índice ordenado sobre un árbol rojinegro inclinado a la izquierda (LLRB).
+ *
+ * Garantiza altura O(log n) como el AVL, pero con un balance más relajado
+ * (hasta 2·log n), por lo que hace menos rotaciones al insertar y eliminar a
+ * cambio de búsquedas algo más profundas.
+ *
+ * @author Rashid
+ */
+public class RedBlackCellIndex extends LinkedCellIndex<RedBlackCellIndex.RBNode> {
+
+    static final class RBNode extends LinkedCellIndex.Node<RBNode> {
+
+        boolean red = true; // los nodos nuevos entran rojos
+
+        RBNode(Cell cell) {
+            super(cell);
+        }
+    }
+
+    public RedBlackCellIndex() {
+        this(false);
+    }
+
+    /**
+     * @param compositeKey true para usar la clave (FM, ISO3)
+     */
+    public RedBlackCellIndex(boolean compositeKey) {
+        super(compositeKey);
+    }
+
+    // ==================== UTILIDADES DE BALANCE ====================
+    private static boolean isRed(RBNode node) {
+        return node != null && node.red;
+    }
+
+    private static RBNode rotateLeft(RBNode node) {
+        RBNode aux = node.right;
+        node.right = aux.left;
+        aux.left = node;
+        aux.red = node.red;
+        node.red = true;
+        return aux;
+    }
+
+    private static RBNode rotateRight(RBNode node) {
+        RBNode aux = node.left;
+        node.left = aux.right;
+        aux.right = node;
+        aux.red = node.red;
+        node.red = true;
+        return aux;
+    }
+
+    private static void flipColors(RBNode node) {
+        node.red = !node.red;
+        node.left.red = !node.left.red;
+        node.right.red = !node.right.red;
+    }
+
+    /**
+     * Restaura las reglas del LLRB al subir por el camino.
+     */
+    private static RBNode fixUp(RBNode node) {
+        if (isRed(node.right) && !isRed(node.left)) {
+            node = rotateLeft(node);
+        }
+        if (isRed(node.left) && isRed(node.left.left)) {
+            node = rotateRight(node);
+        }
+        if (isRed(node.left) && isRed(node.right)) {
+            flipColors(node);
+        }
+        return node;
+    }
+
+    private static RBNode moveRedLeft(RBNode node) {
+        flipColors(node);
+        if (isRed(node.right.left)) {
+            node.right = rotateRight(node.right);
+            node = rotateLeft(node);
+            flipColors(node);
+        }
+        return node;
+    }
+
+    private static RBNode moveRedRight(RBNode node) {
+        flipColors(node);
+        if (isRed(node.left.left)) {
+            node = rotateRight(node);
+            flipColors(node);
+        }
+        return node;
+    }
+
+    // ==================== INSERCIÓN ====================
+    @Override
+    public boolean insert(Cell cell) {
+        int before = size;
+        root = insert(root, cell);
+        root.red = false;
+        if (size == before) {
+            return false;
+        }
+        modCount++;
+        return true;
+    }
+
+    private RBNode insert(RBNode node, Cell cell) {
+        if (node == null) {
+            size++;
+            return new RBNode(cell);
+        }
+        int cmp = compare(cell.FM, cell.ISO3, node.cell);
+        if (cmp < 0) {
+            node.left = insert(node.left, cell);
+        } else if (cmp > 0) {
+            node.right = insert(node.right, cell);
+        } else {
+            return node; // clave duplicada → no insertamos
+        }
+        return fixUp(node);
+    }
+
+    // ==================== ELIMINACIÓN ====================
+    @Override
+    protected void deleteExisting(double FM, String ISO3) {
+        if (!isRed(root.left) && !isRed(root.right)) {
+            root.red = true;
+        }
+        root = delete(root, FM, ISO3);
+        if (root != null) {
+            root.red = false;
+        }
+    }
+
+    private RBNode delete(RBNode node, double FM, String ISO3) {
+        if (compare(FM, ISO3, node.cell) < 0) {
+            if (!isRed(node.left) && !isRed(node.left.left)) {
+                node = moveRedLeft(node);
+            }
+            node.left = delete(node.left, FM, ISO3);
+        } else {
+            if (isRed(node.left)) {
+                node = rotateRight(node);
+            }
+            if (compare(FM, ISO3, node.cell) == 0 && node.right == null) {
+                return null;
+            }
+            if (!isRed(node.right) && !isRed(node.right.left)) {
+                node = moveRedRight(node);
+            }
+            if (compare(FM, ISO3, node.cell) == 0) {
+                // Reemplazar por el sucesor y eliminarlo del subárbol derecho
+                RBNode successor = node.right;
+                while (successor.left != null) {
+                    successor = successor.left;
+                }
+                node.cell = successor.cell;
+                node.right = deleteMin(node.right);
+            } else {
+                node.right = delete(node.right, FM, ISO3);
+            }
+        }
+        return fixUp(node);
+    }
+
+    private RBNode deleteMin(RBNode node) {
+        if (node.left == null) {
+            return null;
+        }
+        if (!isRed(node.left) && !isRed(node.left.left)) {
+            node = moveRedLeft(node);
+        }
+        node.left = deleteMin(node.left);
+        return fixUp(node);
+    }
+}
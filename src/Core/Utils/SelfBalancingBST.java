@@ -5,7 +5,18 @@
 package Core.Utils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Implementación de un Árbol Binario de Búsqueda Auto-balanceado (AVL).
@@ -14,27 +25,158 @@ import java.util.List;
  * enlaces a sus hijos.
  *
  * Este ABB mantiene balance mediante rotaciones simples y dobles, garantizando
- * operaciones de inserción, eliminación y búsqueda en O(log n).
+ * operaciones de inserción, eliminación y búsqueda en O(log n). Cada nodo
+ * guarda su altura, que se actualiza al subir por el camino de la inserción o
+ * eliminación y en las rotaciones, así el balanceo no recorre subárboles.
+ *
+ * Además cada nodo guarda el tamaño de su subárbol (estadístico de orden), lo
+ * que permite conocer la cardinalidad en O(1) y responder rango, selección,
+ * mediana y conteos por intervalo en O(log n).
+ *
+ * El árbol se puede recorrer sin copiar sus celdas: es {@link Iterable} (en
+ * inorden), ofrece iteradores en otros órdenes y un {@link #stream()}
+ * ordenado por FM, o {@link #parallelStream()} para repartir el trabajo en
+ * varios núcleos dividiendo el árbol por subárboles.
+ *
+ * Por defecto la clave es solo el FM y los FM repetidos se descartan. En modo
+ * de clave compuesta (ver {@link #SelfBalancingBST(boolean)}) el orden es por
+ * FM y, ante empates, por ISO3, de modo que varios países con el mismo FM
+ * conviven en el árbol; las búsquedas, eliminaciones y rangos por FM tienen en
+ * cuenta los empates.
+ *
+ * Es la implementación por defecto de {@link OrderedCellIndex}.
  *
  * NOTA: por decisión del profesor, todos los atributos de las estructuras son
  * públicos para evitar encapsulamiento adicional.
  *
  * @author Rashid
  */
-public class SelfBalancingBST extends BinarySearchTree {
+public class SelfBalancingBST extends BinarySearchTree implements OrderedCellIndex {
+
+    /**
+     * A partir de este tamaño la carga masiva ordena las celdas en paralelo.
+     */
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 13;
+
+    /**
+     * A partir de esta cantidad de nodos las operaciones de conjuntos
+     * resuelven las dos mitades en paralelo.
+     */
+    private static final int PARALLEL_SET_THRESHOLD = 1 << 12;
+
+    /**
+     * Distancia máxima entre un FM escrito por el usuario y el de un nodo para
+     * considerarlos el mismo (ver {@link #nearest(double, double)}).
+     */
+    public static final double KEY_TOLERANCE = 0.0001;
+
+    /**
+     * Contador de modificaciones estructurales; los iteradores lo usan para
+     * detectar cambios del árbol mientras recorren.
+     */
+    protected int modCount = 0;
+
+    /**
+     * Observadores que se mantienen sincronizados con el árbol (índices
+     * secundarios, agregados, etc.).
+     */
+    private final List<TreeListener> listeners = new ArrayList<>();
+
+    /**
+     * Si es true, la clave es (FM, ISO3) y se admiten FM repetidos.
+     */
+    private final boolean compositeKey;
 
     // ==================== CONSTRUCTORES ====================
     public SelfBalancingBST() {
+        this(false);
+    }
+
+    /**
+     * Crea un árbol vacío eligiendo el tipo de clave.
+     *
+     * @param compositeKey true para ordenar por (FM, ISO3) y conservar los
+     * países con FM repetido; false para ordenar solo por FM (los repetidos se
+     * descartan)
+     */
+    public SelfBalancingBST(boolean compositeKey) {
         this.root = null;
+        this.compositeKey = compositeKey;
     }
 
+    /**
+     * Crea el árbol a partir de una raíz ya armada. Como los nodos pueden venir
+     * de fuera del AVL, se recalculan una sola vez las alturas guardadas.
+     */
     public SelfBalancingBST(NodeCell root) {
         this.root = root;
+        this.compositeKey = false;
+        recomputeHeights(root);
+    }
+
+    /**
+     * Indica si el árbol usa la clave compuesta (FM, ISO3).
+     */
+    @Override
+    public boolean isCompositeKey() {
+        return compositeKey;
+    }
+
+    // ==================== COMPARACIÓN DE CLAVES ====================
+    /**
+     * Compara una clave (FM, ISO3) contra la clave de una celda del árbol. En
+     * modo de clave simple el ISO3 se ignora.
+     */
+    private int compareKey(double FM, String ISO3, Cell cell) {
+        return CellKeyOrder.compare(FM, ISO3, cell, compositeKey);
+    }
+
+    private int compare(Cell a, Cell b) {
+        return compareKey(a.FM, a.ISO3, b);
+    }
+
+    /**
+     * Orden de las celdas dentro del árbol: FM, y en modo compuesto ISO3.
+     */
+    public Comparator<Cell> comparator() {
+        return CellKeyOrder.comparator(compositeKey);
+    }
+
+    // ==================== OBSERVADORES ====================
+    /**
+     * Registra un observador que será avisado de cada inserción, eliminación
+     * y reconstrucción del árbol.
+     */
+    public void addListener(TreeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(TreeListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void fireInserted(Cell cell) {
+        for (TreeListener listener : listeners) {
+            listener.cellInserted(cell);
+        }
+    }
+
+    private void fireRemoved(Cell cell) {
+        for (TreeListener listener : listeners) {
+            listener.cellRemoved(cell);
+        }
+    }
+
+    private void fireRebuilt() {
+        for (TreeListener listener : listeners) {
+            listener.treeRebuilt(this);
+        }
     }
 
     // ==================== UTILIDADES DE BALANCE ====================
     /**
-     * Calcula la altura de un subárbol.
+     * Obtiene la altura de un subárbol en O(1) leyendo la altura guardada en
+     * el nodo.
      *
      * Convención: si el nodo es null, su altura es 0.
      */
@@ -43,7 +185,7 @@ public class SelfBalancingBST extends BinarySearchTree {
         if (node == null) {
             return 0;
         }
-        return 1 + Math.max(getHeight(node.left), getHeight(node.right));
+        return node.height;
     }
 
     /**
@@ -58,11 +200,44 @@ public class SelfBalancingBST extends BinarySearchTree {
         return getHeight(node.left) - getHeight(node.right);
     }
 
+    /**
+     * Tamaño guardado de un subárbol. Si el nodo es null, su tamaño es 0.
+     */
+    private int sizeOf(NodeCell node) {
+        return (node == null) ? 0 : node.size;
+    }
+
+    /**
+     * Actualiza la altura, el tamaño y el factor de balance guardados en el
+     * nodo a partir de sus hijos. Se debe llamar cada vez que cambian los hijos
+     * del nodo.
+     */
+    protected void update(NodeCell node) {
+        int leftHeight = getHeight(node.left);
+        int rightHeight = getHeight(node.right);
+        node.height = 1 + Math.max(leftHeight, rightHeight);
+        node.balance = leftHeight - rightHeight;
+        node.size = 1 + sizeOf(node.left) + sizeOf(node.right);
+    }
+
+    /**
+     * Recalcula en postorden los datos guardados de todo un subárbol.
+     */
+    private void recomputeHeights(NodeCell node) {
+        if (node != null) {
+            recomputeHeights(node.left);
+            recomputeHeights(node.right);
+            update(node);
+        }
+    }
+
     // ==================== ROTACIONES ====================
     private NodeCell simpleLeftRotation(NodeCell node) {
         NodeCell aux = node.right;
         node.right = aux.left;
         aux.left = node;
+        update(node); // primero el nodo que bajó, luego la nueva raíz
+        update(aux);
         return aux;
     }
 
@@ -70,6 +245,8 @@ public class SelfBalancingBST extends BinarySearchTree {
         NodeCell aux = node.left;
         node.left = aux.right;
         aux.right = node;
+        update(node);
+        update(aux);
         return aux;
     }
 
@@ -87,45 +264,67 @@ public class SelfBalancingBST extends BinarySearchTree {
     /**
      * Inserta un nuevo nodo con la celda dada en el ABB.
      *
-     * Si el FM ya existe, se ignora la inserción.
+     * Si la clave ya existe, se ignora la inserción.
      */
     @Override
     public void addNode(Cell cell) {
+        insert(cell);
+    }
+
+    /**
+     * Inserta la celda y avisa si realmente se agregó. No imprime nada: quien
+     * llama decide cómo informar una clave repetida.
+     *
+     * @return true si se insertó, false si la clave ya existía
+     */
+    @Override
+    public boolean insert(Cell cell) {
+        int before = size();
         this.root = insertNode(this.root, cell);
+        if (size() == before) {
+            return false; // clave repetida: el árbol no cambió y los iteradores siguen válidos
+        }
+        modCount++;
+        fireInserted(cell);
+        return true;
     }
 
     private NodeCell insertNode(NodeCell root, Cell cell) {
         if (root == null) {
-            return new NodeCell(cell);
+            NodeCell leaf = new NodeCell(cell);
+            update(leaf); // las subclases también inicializan sus datos en la hoja
+            return leaf;
         }
 
         // Inserción como BST normal
-        if (cell.FM < root.cell.FM) {
+        int cmp = compare(cell, root.cell);
+        if (cmp < 0) {
             root.left = insertNode(root.left, cell);
-        } else if (cell.FM > root.cell.FM) {
+        } else if (cmp > 0) {
             root.right = insertNode(root.right, cell);
         } else {
-            System.out.println("Duplicated FM, " + cell.FM + " not inserted");
             return root; // clave duplicada → no insertamos
         }
 
+        update(root);
+
         // Balanceo AVL
         int balance = getBalance(root);
 
         // Caso 1: Left-Left
-        if (balance > 1 && cell.FM < root.left.cell.FM) {
+        if (balance > 1 && compare(cell, root.left.cell) < 0) {
             return simpleRightRotation(root);
         }
         // Caso 2: Right-Right
-        if (balance < -1 && cell.FM > root.right.cell.FM) {
+        if (balance < -1 && compare(cell, root.right.cell) > 0) {
             return simpleLeftRotation(root);
         }
         // Caso 3: Left-Right
-        if (balance > 1 && cell.FM > root.left.cell.FM) {
+        if (balance > 1 && compare(cell, root.left.cell) > 0) {
             return doubleLeftRightRotation(root);
         }
         // Caso 4: Right-Left
-        if (balance < -1 && cell.FM < root.right.cell.FM) {
+        if (balance < -1 && compare(cell, root.right.cell) < 0) {
             return doubleRightLeftRotation(root);
         }
 
@@ -135,25 +334,58 @@ public class SelfBalancingBST extends BinarySearchTree {
     // ==================== ELIMINACIÓN ====================
     /**
      * Elimina un nodo por clave (FM). Si no existe, muestra mensaje de error.
+     *
+     * Si hay varios países con ese FM (modo de clave compuesta), se elimina el
+     * de menor ISO3.
      */
     public void deleteNode(double FM) {
-        if (search(FM) != null) {
-            this.root = deleteNode(this.root, FM);
-        } else {
+        if (!delete(FM)) {
             System.out.println("El dato no existe");
         }
     }
 
-    private NodeCell deleteNode(NodeCell root, double FM) {
+    /**
+     * Elimina la celda con el FM dado (la de menor ISO3 si hay empates).
+     *
+     * @return true si se eliminó, false si no existía
+     */
+    @Override
+    public boolean delete(double FM) {
+        NodeCell node = firstWithFM(FM);
+        return node != null && removeCell(node.cell);
+    }
+
+    /**
+     * Elimina la celda con el FM e ISO3 dados. Sirve para elegir entre países
+     * con el mismo FM.
+     *
+     * @return true si se eliminó, false si no existía
+     */
+    @Override
+    public boolean delete(double FM, String ISO3) {
+        NodeCell node = search(FM, ISO3);
+        return node != null && removeCell(node.cell);
+    }
+
+    private boolean removeCell(Cell removed) {
+        // Se guarda la celda antes: el nodo puede recibir la celda del sucesor
+        this.root = deleteNode(this.root, removed);
+        modCount++;
+        fireRemoved(removed);
+        return true;
+    }
+
+    private NodeCell deleteNode(NodeCell root, Cell target) {
         if (root == null) {
             return null;
         }
 
         // Eliminación como BST normal
-        if (FM < root.cell.FM) {
-            root.left = deleteNode(root.left, FM);
-        } else if (FM > root.cell.FM) {
-            root.right = deleteNode(root.right, FM);
+        int cmp = compare(target, root.cell);
+        if (cmp < 0) {
+            root.left = deleteNode(root.left, target);
+        } else if (cmp > 0) {
+            root.right = deleteNode(root.right, target);
         } else {
             // Nodo encontrado
             if (root.left == null || root.right == null) {
@@ -161,7 +393,7 @@ public class SelfBalancingBST extends BinarySearchTree {
             } else {
                 NodeCell successor = findMin(root.right);
                 root.cell = successor.cell;
-                root.right = deleteNode(root.right, successor.cell.FM);
+                root.right = deleteNode(root.right, successor.cell);
             }
         }
 
@@ -169,6 +401,8 @@ public class SelfBalancingBST extends BinarySearchTree {
             return null;
         }
 
+        update(root);
+
         // Rebalanceo AVL
         int balance = getBalance(root);
 
@@ -190,127 +424,1174 @@ public class SelfBalancingBST extends BinarySearchTree {
         return root;
     }
 
-    // ==================== RECORRIDO INORDEN ====================
+    // ==================== BÚSQUEDA CON EMPATES ====================
     /**
-     * Retorna una lista de celdas ordenadas por FM (inorden).
+     * Busca el nodo con el FM e ISO3 dados. En modo de clave simple basta con
+     * el FM, pero el ISO3 debe coincidir con el de la celda encontrada.
      */
-    public List<Cell> inOrderAdding() {
-        List<Cell> result = new ArrayList<>();
-        inOrderRecursive(root, result);
-        return result;
+    public NodeCell search(double FM, String ISO3) {
+        NodeCell node = root;
+        while (node != null) {
+            int cmp = compareKey(FM, ISO3, node.cell);
+            if (cmp == 0) {
+                return (compositeKey || Objects.equals(ISO3, node.cell.ISO3)) ? node : null;
+            }
+            node = (cmp < 0) ? node.left : node.right;
+        }
+        return null;
     }
 
-    private void inOrderRecursive(NodeCell node, List<Cell> result) {
-        if (node != null) {
-            inOrderRecursive(node.left, result);
-            result.add(node.cell);
-            inOrderRecursive(node.right, result);
+    /**
+     * Celda con el FM dado (en modo compuesto, la de menor ISO3), o null.
+     */
+    @Override
+    public Cell find(double FM) {
+        NodeCell node = firstWithFM(FM);
+        return (node == null) ? null : node.cell;
+    }
+
+    /**
+     * Celda con el FM e ISO3 dados, o null.
+     */
+    @Override
+    public Cell find(double FM, String ISO3) {
+        NodeCell node = search(FM, ISO3);
+        return (node == null) ? null : node.cell;
+    }
+
+    /**
+     * Todas las celdas con exactamente el FM dado, ordenadas por ISO3.
+     */
+    public List<Cell> searchAll(double FM) {
+        return rangeQuery(FM, FM);
+    }
+
+    /**
+     * Primer nodo en orden con el FM dado (el de menor ISO3 si hay empates).
+     */
+    private NodeCell firstWithFM(double FM) {
+        NodeCell found = null;
+        NodeCell node = root;
+        while (node != null) {
+            if (FM < node.cell.FM) {
+                node = node.left;
+            } else if (FM > node.cell.FM) {
+                node = node.right;
+            } else {
+                found = node;
+                node = node.left; // puede haber uno igual más a la izquierda
+            }
         }
+        return found;
     }
 
-    // ==================== MÉTODOS AUXILIARES ====================
+    // ==================== CONSTRUCCIÓN MASIVA ====================
     /**
-     * Encuentra el nivel de un nodo con temperatura específica
+     * Reemplaza el contenido del árbol por las celdas dadas, armando un AVL
+     * perfectamente balanceado sin rotaciones.
+     *
+     * Las celdas se ordenan por clave (en paralelo si son muchas) y luego se
+     * descartan las claves repetidas en una sola pasada, conservando la primera
+     * celda de cada clave tal como haría {@link #addNode(Cell)}. El armado del
+     * árbol a partir del arreglo ordenado es O(n). Si las celdas ya vienen en
+     * orden (por ejemplo desde un {@link CellSnapshot}) no se ordenan y toda la
+     * carga es lineal.
+     *
+     * @param cells celdas a cargar, en cualquier orden
      */
-    public int getNodeLevel(double temperatura) {
-        return getNodeLevel(root, temperatura, 1);
+    @Override
+    public void buildFrom(Collection<Cell> cells) {
+        Cell[] sorted = cells.toArray(new Cell[0]);
+        sortByKey(sorted);
+        int unique = removeDuplicates(sorted);
+        this.root = buildBalanced(sorted, 0, unique - 1);
+        modCount++;
+        fireRebuilt();
     }
 
-    private int getNodeLevel(NodeCell node, double temperatura, int level) {
-        if (node == null) {
-            return -1;
+    /**
+     * Ordena por clave, salvo que ya venga ordenado. Ambos ordenamientos son
+     * estables: ante claves iguales se mantiene el orden de llegada.
+     */
+    private void sortByKey(Cell[] cells) {
+        Comparator<Cell> byKey = comparator();
+        if (!isSorted(cells, byKey)) {
+            if (cells.length >= PARALLEL_SORT_THRESHOLD) {
+                Arrays.parallelSort(cells, byKey);
+            } else {
+                Arrays.sort(cells, byKey);
+            }
         }
-        if (Math.abs(node.cell.FM - temperatura) < 0.0001) {
-            return level;
+    }
+
+    private static boolean isSorted(Cell[] cells, Comparator<Cell> byKey) {
+        for (int i = 1; i < cells.length; i++) {
+            if (byKey.compare(cells[i - 1], cells[i]) > 0) {
+                return false;
+            }
         }
+        return true;
+    }
 
-        if (temperatura < node.cell.FM) {
-            return getNodeLevel(node.left, temperatura, level + 1);
-        } else {
-            return getNodeLevel(node.right, temperatura, level + 1);
+    /**
+     * Compacta al inicio del arreglo ordenado las celdas con clave distinta.
+     *
+     * @return cantidad de celdas que quedaron
+     */
+    private int removeDuplicates(Cell[] sorted) {
+        int size = 0;
+        for (Cell cell : sorted) {
+            if (size == 0 || compare(cell, sorted[size - 1]) != 0) {
+                sorted[size++] = cell;
+            }
         }
+        return size;
     }
 
     /**
-     * Encuentra el factor de balance de un nodo específico
+     * Arma recursivamente un subárbol balanceado tomando el elemento central
+     * del rango como raíz. Las alturas quedan correctas desde las hojas.
      */
-    public int getNodeBalance(double temperatura) {
-        NodeCell node = findNode(root, temperatura);
-        return node != null ? getBalance(node) : Integer.MIN_VALUE;
+    private NodeCell buildBalanced(Cell[] sorted, int from, int to) {
+        if (from > to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        NodeCell node = new NodeCell(sorted[mid]);
+        node.left = buildBalanced(sorted, from, mid - 1);
+        node.right = buildBalanced(sorted, mid + 1, to);
+        update(node);
+        return node;
     }
 
+    // ==================== OPERACIONES POR LOTES ====================
     /**
-     * Encuentra el padre de un nodo
+     * Inserta un lote de celdas con el mismo resultado que llamar a
+     * {@link #insert(Cell)} con cada una en el orden dado: las claves que ya
+     * están en el árbol o que se repiten dentro del lote conservan la primera
+     * celda.
+     *
+     * El lote se ordena una vez. Si es chico frente al árbol se inserta en
+     * orden de clave (los descensos recorren caminos vecinos); si es grande se
+     * mezcla en una pasada con el recorrido en orden del árbol y el árbol se
+     * arma de nuevo en tiempo lineal. En el primer caso los observadores
+     * reciben un aviso por cada celda insertada; en el segundo, un solo aviso
+     * de reconstrucción (un aviso por celda haría que índices como
+     * {@link YearIndexes} pagaran O(n) por cada una).
+     *
+     * @param cells celdas a insertar, en cualquier orden
+     * @return cantidad de celdas insertadas
      */
-    public Cell getParentNode(double temperatura) {
-        NodeCell parent = findParent(root, temperatura, null);
-        return parent != null ? parent.cell : null;
+    public int addAll(Collection<Cell> cells) {
+        Cell[] batch = cells.toArray(new Cell[0]);
+        sortByKey(batch);
+        int count = removeDuplicates(batch);
+
+        if (!shouldRebuild(count)) {
+            int inserted = 0;
+            for (int i = 0; i < count; i++) {
+                if (insert(batch[i])) {
+                    inserted++;
+                }
+            }
+            return inserted;
+        }
+
+        List<Cell> current = inOrderAdding();
+        Cell[] merged = new Cell[current.size() + count];
+        int size = 0;
+        int j = 0;
+        for (Cell cell : current) {
+            while (j < count && compare(batch[j], cell) < 0) {
+                merged[size++] = batch[j++];
+            }
+            if (j < count && compare(batch[j], cell) == 0) {
+                j++; // la clave ya estaba: se conserva la celda del árbol
+            }
+            merged[size++] = cell;
+        }
+        while (j < count) {
+            merged[size++] = batch[j++];
+        }
+        int inserted = size - current.size();
+        if (inserted == 0) {
+            return 0;
+        }
+
+        this.root = buildBalanced(merged, 0, size - 1);
+        modCount++;
+        fireRebuilt();
+        return inserted;
     }
 
-    private NodeCell findParent(NodeCell current, double temperatura, NodeCell parent) {
-        if (current == null) {
-            return null;
+    /**
+     * Elimina por FM un lote de claves con el mismo resultado que llamar a
+     * {@link #delete(double)} con cada una: cada aparición de un FM elimina la
+     * celda de menor ISO3 que quede con ese FM, y las claves que no existen se
+     * ignoran.
+     *
+     * Un lote chico se elimina clave por clave en el orden dado (borrar claves
+     * vecinas seguidas provoca más rotaciones); uno grande se ordena y se
+     * resuelve en una sola pasada sobre el recorrido en orden, rearmando el
+     * árbol en tiempo lineal. En el primer caso los observadores reciben un
+     * aviso por cada celda eliminada; en el segundo, un solo aviso de
+     * reconstrucción.
+     *
+     * @param keys valores de FM a eliminar, en cualquier orden
+     * @return cantidad de celdas eliminadas
+     */
+    public int removeAll(double[] keys) {
+        if (!shouldRebuild(keys.length)) {
+            int removed = 0;
+            for (double FM : keys) {
+                if (delete(FM)) {
+                    removed++;
+                }
+            }
+            return removed;
         }
 
-        if (Math.abs(current.cell.FM - temperatura) < 0.0001) {
-            return parent;
+        double[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        List<Cell> current = inOrderAdding();
+        Cell[] kept = new Cell[current.size()];
+        int size = 0;
+        int j = 0;
+        for (Cell cell : current) {
+            while (j < sorted.length && sorted[j] < cell.FM) {
+                j++; // no hay celdas con esa clave
+            }
+            if (j < sorted.length && sorted[j] == cell.FM) {
+                j++;
+            } else {
+                kept[size++] = cell;
+            }
+        }
+        int removed = current.size() - size;
+        if (removed == 0) {
+            return 0;
         }
 
-        NodeCell found = findParent(current.left, temperatura, current);
-        if (found != null) {
-            return found;
+        this.root = buildBalanced(kept, 0, size - 1);
+        modCount++;
+        fireRebuilt();
+        return removed;
+    }
+
+    /**
+     * Elimina todas las celdas que cumplen la condición con un solo recorrido
+     * en orden: las que quedan se juntan ya ordenadas y el árbol se arma de
+     * nuevo en tiempo lineal, sin búsquedas ni rotaciones por cada celda.
+     *
+     * Si la condición lanza una excepción el árbol queda sin cambios. Si se
+     * elimina alguna celda, los observadores reciben un solo aviso de
+     * reconstrucción, no uno por celda.
+     *
+     * @param filter condición de las celdas a eliminar
+     * @return celdas eliminadas, en orden de clave
+     */
+    public List<Cell> removeIf(Predicate<? super Cell> filter) {
+        Cell[] kept = new Cell[size()];
+        List<Cell> removed = new ArrayList<>();
+        int size = partition(root, filter, kept, 0, removed);
+        if (removed.isEmpty()) {
+            return removed;
         }
 
-        return findParent(current.right, temperatura, current);
+        this.root = buildBalanced(kept, 0, size - 1);
+        modCount++;
+        fireRebuilt();
+        return removed;
     }
 
     /**
-     * Encuentra el abuelo de un nodo
+     * Reparte en orden las celdas del subárbol entre las que quedan y las que
+     * se eliminan.
+     *
+     * @return cantidad de celdas en kept después de este subárbol
      */
-    public Cell getGrandparentNode(double temperatura) {
-        NodeCell parent = findParent(root, temperatura, null);
-        if (parent == null) {
-            return null;
+    private int partition(NodeCell node, Predicate<? super Cell> filter, Cell[] kept, int size, List<Cell> removed) {
+        if (node == null) {
+            return size;
+        }
+        size = partition(node.left, filter, kept, size, removed);
+        if (filter.test(node.cell)) {
+            removed.add(node.cell);
+        } else {
+            kept[size++] = node.cell;
         }
+        return partition(node.right, filter, kept, size, removed);
+    }
 
-        NodeCell grandparent = findParent(root, parent.cell.FM, null);
-        return grandparent != null ? grandparent.cell : null;
+    /**
+     * Un lote conviene resolverlo rearmando el árbol cuando hacerlo uno por
+     * uno (unos log n pasos por elemento) costaría más que recorrer todo el
+     * árbol.
+     */
+    private boolean shouldRebuild(int batchSize) {
+        int size = size();
+        int log = 32 - Integer.numberOfLeadingZeros(size + 1);
+        return (long) batchSize * log >= size;
     }
 
+    // ==================== DIVISIÓN Y UNIÓN DE ÁRBOLES ====================
     /**
-     * Encuentra el tío de un nodo
+     * Resultado de dividir un subárbol por una clave.
      */
-    public Cell getUncleNode(double temperatura) {
-        NodeCell parent = findParent(root, temperatura, null);
-        if (parent == null) {
-            return null;
+    private static final class Split {
+
+        NodeCell left;   // claves menores
+        NodeCell match;  // nodo con la clave, ya sin hijos, o null
+        NodeCell right;  // claves mayores
+    }
+
+    /**
+     * Parte el árbol en O(log n): este árbol se queda con las celdas de FM
+     * menor al dado y las demás pasan al árbol que se retorna (del mismo tipo
+     * y modo de clave). Los nodos se reutilizan, no se copian.
+     *
+     * @param FM primera clave del árbol retornado
+     * @return árbol nuevo con las celdas de FM mayor o igual
+     */
+    public SelfBalancingBST split(double FM) {
+        Split parts = split(root, FM, null);
+        SelfBalancingBST greater = emptyCopy();
+        greater.root = (parts.match == null) ? parts.right : join(null, parts.match, parts.right);
+        this.root = parts.left;
+        modCount++;
+        fireRebuilt();
+        return greater;
+    }
+
+    /**
+     * Agrega al final de este árbol todas las celdas de otro en O(log n). Todas
+     * las claves del otro deben ser mayores que las de este. El otro árbol
+     * queda vacío porque sus nodos pasan a este.
+     *
+     * @throws IllegalArgumentException si las claves se superponen o los
+     * árboles no son compatibles
+     */
+    public void join(SelfBalancingBST other) {
+        requireCompatible(other);
+        if (root != null && other.root != null && compare(findMax(root).cell, findMin(other.root).cell) >= 0) {
+            throw new IllegalArgumentException("Las claves del otro árbol deben ser mayores que las de este");
         }
+        this.root = join2(root, other.root);
+        other.clearAfterMerge();
+        modCount++;
+        fireRebuilt();
+    }
 
-        NodeCell grandparent = findParent(root, parent.cell.FM, null);
-        if (grandparent == null) {
-            return null;
+    /**
+     * Une subárboles con todas las claves de l menores que k y las de k menores
+     * que r. Solo baja por el borde del más alto hasta la altura del otro, así
+     * que cuesta O(|altura(l) - altura(r)|).
+     */
+    private NodeCell join(NodeCell l, NodeCell k, NodeCell r) {
+        if (getHeight(l) > getHeight(r) + 1) {
+            return joinRight(l, k, r);
+        }
+        if (getHeight(r) > getHeight(l) + 1) {
+            return joinLeft(l, k, r);
         }
+        k.left = l;
+        k.right = r;
+        update(k);
+        return k;
+    }
 
-        // El tío es el hermano del padre
-        if (grandparent.left == parent) {
-            return grandparent.right != null ? grandparent.right.cell : null;
-        } else {
-            return grandparent.left != null ? grandparent.left.cell : null;
+    private NodeCell joinRight(NodeCell l, NodeCell k, NodeCell r) {
+        NodeCell c = l.right;
+        if (getHeight(c) <= getHeight(r) + 1) {
+            k.left = c;
+            k.right = r;
+            update(k);
+            if (getHeight(k) <= getHeight(l.left) + 1) {
+                l.right = k;
+                update(l);
+                return l;
+            }
+            l.right = simpleRightRotation(k);
+            update(l);
+            return simpleLeftRotation(l);
         }
+        l.right = joinRight(c, k, r);
+        update(l);
+        return (getBalance(l) < -1) ? simpleLeftRotation(l) : l;
     }
 
-    private NodeCell findNode(NodeCell node, double temperatura) {
-        if (node == null) {
-            return null;
+    private NodeCell joinLeft(NodeCell l, NodeCell k, NodeCell r) {
+        NodeCell c = r.left;
+        if (getHeight(c) <= getHeight(l) + 1) {
+            k.left = l;
+            k.right = c;
+            update(k);
+            if (getHeight(k) <= getHeight(r.right) + 1) {
+                r.left = k;
+                update(r);
+                return r;
+            }
+            r.left = simpleLeftRotation(k);
+            update(r);
+            return simpleRightRotation(r);
         }
+        r.left = joinLeft(l, k, c);
+        update(r);
+        return (getBalance(r) > 1) ? simpleRightRotation(r) : r;
+    }
 
-        if (Math.abs(node.cell.FM - temperatura) < 0.0001) {
-            return node;
-        } else if (temperatura < node.cell.FM) {
-            return findNode(node.left, temperatura);
-        } else {
-            return findNode(node.right, temperatura);
+    /**
+     * Une dos subárboles sin nodo intermedio: el máximo de l hace de unión.
+     */
+    private NodeCell join2(NodeCell l, NodeCell r) {
+        if (l == null) {
+            return r;
         }
+        if (r == null) {
+            return l;
+        }
+        NodeCell[] last = new NodeCell[1];
+        NodeCell rest = removeLast(l, last);
+        return join(rest, last[0], r);
+    }
+
+    /**
+     * Saca el nodo máximo del subárbol (queda en last[0]) y rebalancea.
+     */
+    private NodeCell removeLast(NodeCell node, NodeCell[] last) {
+        if (node.right == null) {
+            last[0] = node;
+            NodeCell rest = node.left;
+            node.left = null;
+            return rest;
+        }
+        return join(node.left, node, removeLast(node.right, last));
+    }
+
+    /**
+     * Divide el subárbol en claves menores y mayores que (FM, ISO3). Los nodos
+     * del camino se reparten entre ambos lados con join.
+     */
+    private Split split(NodeCell node, double FM, String ISO3) {
+        if (node == null) {
+            return new Split();
+        }
+        NodeCell left = node.left;
+        NodeCell right = node.right;
+        int cmp = compareKey(FM, ISO3, node.cell);
+        if (cmp == 0) {
+            Split parts = new Split();
+            parts.left = left;
+            parts.right = right;
+            node.left = null;
+            node.right = null;
+            update(node);
+            parts.match = node;
+            return parts;
+        }
+        if (cmp < 0) {
+            Split parts = split(left, FM, ISO3);
+            parts.right = join(parts.right, node, right);
+            return parts;
+        }
+        Split parts = split(right, FM, ISO3);
+        parts.left = join(left, node, parts.left);
+        return parts;
+    }
+
+    private Split split(NodeCell node, Cell key) {
+        return split(node, key.FM, key.ISO3);
+    }
+
+    // ==================== OPERACIONES DE CONJUNTOS ====================
+    /**
+     * Deja en este árbol la unión con otro. Ante claves repetidas se conserva
+     * la celda de este árbol.
+     *
+     * Las operaciones de conjuntos son destructivas para ambos operandos: los
+     * nodos del otro árbol se reutilizan y ese árbol queda vacío. Cuestan
+     * O(m log(n/m + 1)) para tamaños m ≤ n y los subárboles grandes se
+     * procesan en paralelo con {@link ForkJoinPool}. Los observadores de ambos
+     * árboles reciben {@link TreeListener#treeRebuilt}.
+     *
+     * @throws IllegalArgumentException si los árboles no son compatibles
+     */
+    public void union(SelfBalancingBST other) {
+        requireCompatible(other);
+        this.root = ForkJoinPool.commonPool().invoke(new SetOperation(SetOperation.UNION, root, other.root));
+        finishSetOperation(other);
+    }
+
+    /**
+     * Deja en este árbol solo las celdas cuya clave también está en el otro
+     * (se conservan las celdas de este). Ver {@link #union} sobre los operandos.
+     */
+    public void intersection(SelfBalancingBST other) {
+        requireCompatible(other);
+        this.root = ForkJoinPool.commonPool().invoke(new SetOperation(SetOperation.INTERSECTION, root, other.root));
+        finishSetOperation(other);
+    }
+
+    /**
+     * Quita de este árbol las celdas cuya clave está en el otro. Ver
+     * {@link #union} sobre los operandos.
+     */
+    public void difference(SelfBalancingBST other) {
+        requireCompatible(other);
+        this.root = ForkJoinPool.commonPool().invoke(new SetOperation(SetOperation.DIFFERENCE, root, other.root));
+        finishSetOperation(other);
+    }
+
+    private void finishSetOperation(SelfBalancingBST other) {
+        other.clearAfterMerge();
+        modCount++;
+        fireRebuilt();
+    }
+
+    /**
+     * Vacía el árbol cuyos nodos pasaron a otro.
+     */
+    private void clearAfterMerge() {
+        this.root = null;
+        modCount++;
+        fireRebuilt();
+    }
+
+    /**
+     * Operación de conjuntos sobre dos subárboles: se divide el segundo (o el
+     * primero, en la diferencia) por la raíz del otro y ambas mitades se
+     * resuelven por separado, en paralelo si son grandes, para luego unirlas
+     * con join.
+     */
+    private final class SetOperation extends RecursiveTask<NodeCell> {
+
+        private static final long serialVersionUID = 1L;
+
+        static final int UNION = 0;
+        static final int INTERSECTION = 1;
+        static final int DIFFERENCE = 2;
+
+        private final int kind;
+        private final NodeCell a;
+        private final NodeCell b;
+
+        SetOperation(int kind, NodeCell a, NodeCell b) {
+            this.kind = kind;
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        protected NodeCell compute() {
+            if (a == null) {
+                return (kind == UNION) ? b : null;
+            }
+            if (b == null) {
+                return (kind == INTERSECTION) ? null : a;
+            }
+
+            NodeCell pivot;
+            NodeCell leftA;
+            NodeCell rightA;
+            Split parts;
+            if (kind == DIFFERENCE) {
+                pivot = b;
+                parts = split(a, b.cell); // las celdas de a con la clave de b se descartan
+                leftA = parts.left;
+                rightA = parts.right;
+            } else {
+                pivot = a;
+                leftA = a.left;
+                rightA = a.right;
+                parts = split(b, a.cell); // el nodo igual de b se descarta: gana la celda de a
+            }
+            NodeCell leftB = (kind == DIFFERENCE) ? pivot.left : parts.left;
+            NodeCell rightB = (kind == DIFFERENCE) ? pivot.right : parts.right;
+
+            SetOperation leftTask = new SetOperation(kind, leftA, leftB);
+            SetOperation rightTask = new SetOperation(kind, rightA, rightB);
+            NodeCell left;
+            NodeCell right;
+            if (sizeOf(leftA) + sizeOf(leftB) + sizeOf(rightA) + sizeOf(rightB) >= PARALLEL_SET_THRESHOLD) {
+                leftTask.fork();
+                right = rightTask.compute();
+                left = leftTask.join();
+            } else {
+                left = leftTask.compute();
+                right = rightTask.compute();
+            }
+
+            boolean keepPivot = (kind == UNION) || (kind == INTERSECTION && parts.match != null);
+            return keepPivot ? SelfBalancingBST.this.join(left, pivot, right) : join2(left, right);
+        }
+    }
+
+    /**
+     * Comprueba que otro árbol se pueda combinar con este: mismo tipo y modo
+     * de clave (los nodos guardan datos que calcula cada tipo de árbol).
+     */
+    private void requireCompatible(SelfBalancingBST other) {
+        if (other == this) {
+            throw new IllegalArgumentException("No se puede combinar un árbol consigo mismo");
+        }
+        if (!isCompatible(other)) {
+            throw new IllegalArgumentException("Los árboles no son compatibles (tipo o modo de clave distinto)");
+        }
+    }
+
+    /**
+     * Indica si los nodos de otro árbol pueden pasar a este sin recalcular sus
+     * datos. Las subclases que guardan más datos en los nodos lo extienden.
+     */
+    protected boolean isCompatible(SelfBalancingBST other) {
+        return other.getClass() == getClass() && other.compositeKey == compositeKey;
+    }
+
+    /**
+     * Árbol vacío del mismo tipo y modo de clave que este.
+     */
+    protected SelfBalancingBST emptyCopy() {
+        return new SelfBalancingBST(compositeKey);
+    }
+
+    // ==================== ESTADÍSTICOS DE ORDEN ====================
+    /**
+     * Cantidad de nodos del árbol en O(1).
+     */
+    @Override
+    public int size() {
+        return sizeOf(root);
+    }
+
+    /**
+     * Cardinalidad en O(1) usando el tamaño guardado en la raíz.
+     */
+    @Override
+    public int getCard() {
+        return size();
+    }
+
+    /**
+     * Cantidad de celdas con FM estrictamente menor al valor dado.
+     *
+     * @param FM valor de referencia (no necesita existir en el árbol)
+     * @return posición que ocuparía FM en el recorrido inorden
+     */
+    public int rank(double FM) {
+        int rank = 0;
+        NodeCell node = root;
+        while (node != null) {
+            if (FM <= node.cell.FM) {
+                node = node.left;
+            } else {
+                rank += sizeOf(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Cantidad de celdas con FM menor o igual al valor dado.
+     */
+    private int rankInclusive(double FM) {
+        int rank = 0;
+        NodeCell node = root;
+        while (node != null) {
+            if (FM < node.cell.FM) {
+                node = node.left;
+            } else {
+                rank += sizeOf(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Devuelve la k-ésima celda en orden de FM (empezando en 0).
+     *
+     * @param k posición buscada
+     * @return la celda en esa posición, o null si k está fuera de rango
+     */
+    public Cell select(int k) {
+        if (k < 0 || k >= size()) {
+            return null;
+        }
+        NodeCell node = root;
+        while (node != null) {
+            int leftSize = sizeOf(node.left);
+            if (k < leftSize) {
+                node = node.left;
+            } else if (k > leftSize) {
+                k -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.cell;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Mediana de los FM del árbol. Con una cantidad par de nodos se promedian
+     * los dos centrales.
+     *
+     * @return la mediana, o NaN si el árbol está vacío
+     */
+    public double median() {
+        int n = size();
+        if (n == 0) {
+            return Double.NaN;
+        }
+        double lower = select((n - 1) / 2).FM;
+        if (n % 2 == 1) {
+            return lower;
+        }
+        return (lower + select(n / 2).FM) / 2.0;
+    }
+
+    /**
+     * Cantidad de celdas con FM dentro del intervalo cerrado [lo, hi].
+     */
+    public int countInRange(double lo, double hi) {
+        if (lo > hi) {
+            return 0;
+        }
+        return rankInclusive(hi) - rank(lo);
+    }
+
+    // ==================== CONSULTAS POR RANGO ====================
+    /**
+     * Celdas con FM dentro del intervalo cerrado [lo, hi], ordenadas por FM.
+     *
+     * Solo se visitan los subárboles que pueden tener valores del rango, así
+     * que el costo es O(log n + k), con k la cantidad de resultados.
+     */
+    @Override
+    public List<Cell> rangeQuery(double lo, double hi) {
+        List<Cell> result = new ArrayList<>();
+        collectRange(root, lo, true, hi, true, result);
+        return result;
+    }
+
+    /**
+     * Celdas con FM mayor (o mayor o igual) al valor dado, ordenadas por FM.
+     *
+     * @param from límite inferior
+     * @param inclusive si se incluyen las celdas con FM igual al límite
+     */
+    public List<Cell> tailQuery(double from, boolean inclusive) {
+        List<Cell> result = new ArrayList<>();
+        collectRange(root, from, inclusive, Double.POSITIVE_INFINITY, true, result);
+        return result;
+    }
+
+    /**
+     * Celdas con FM menor (o menor o igual) al valor dado, ordenadas por FM.
+     *
+     * @param to límite superior
+     * @param inclusive si se incluyen las celdas con FM igual al límite
+     */
+    public List<Cell> headQuery(double to, boolean inclusive) {
+        List<Cell> result = new ArrayList<>();
+        collectRange(root, Double.NEGATIVE_INFINITY, true, to, inclusive, result);
+        return result;
+    }
+
+    private void collectRange(NodeCell node, double lo, boolean loInclusive,
+            double hi, boolean hiInclusive, List<Cell> result) {
+        if (node == null) {
+            return;
+        }
+        double FM = node.cell.FM;
+        boolean aboveLo = loInclusive ? FM >= lo : FM > lo;
+        boolean belowHi = hiInclusive ? FM <= hi : FM < hi;
+
+        if (aboveLo) {
+            collectRange(node.left, lo, loInclusive, hi, hiInclusive, result);
+        }
+        if (aboveLo && belowHi) {
+            result.add(node.cell);
+        }
+        if (belowHi) {
+            collectRange(node.right, lo, loInclusive, hi, hiInclusive, result);
+        }
+    }
+
+    /**
+     * Celda con el mayor FM menor o igual al valor dado, o null si no hay.
+     */
+    public Cell floor(double FM) {
+        Cell best = null;
+        NodeCell node = root;
+        while (node != null) {
+            if (node.cell.FM <= FM) {
+                best = node.cell;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Celda con el menor FM mayor o igual al valor dado, o null si no hay.
+     */
+    public Cell ceiling(double FM) {
+        Cell best = null;
+        NodeCell node = root;
+        while (node != null) {
+            if (node.cell.FM >= FM) {
+                best = node.cell;
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Celda con el menor FM estrictamente mayor al valor dado, o null si no
+     * hay.
+     */
+    public Cell higher(double FM) {
+        Cell best = null;
+        NodeCell node = root;
+        while (node != null) {
+            if (node.cell.FM > FM) {
+                best = node.cell;
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Celda con el mayor FM estrictamente menor al valor dado, o null si no
+     * hay.
+     */
+    public Cell lower(double FM) {
+        Cell best = null;
+        NodeCell node = root;
+        while (node != null) {
+            if (node.cell.FM < FM) {
+                best = node.cell;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return best;
+    }
+
+    // ==================== BÚSQUEDA POR CERCANÍA ====================
+    /**
+     * Vecinos de un valor de FM en el árbol.
+     */
+    public static final class Neighbors {
+
+        public final NodeCell floor;   // Mayor FM menor o igual al valor (null si no hay)
+        public final NodeCell ceiling; // Menor FM mayor o igual al valor (null si no hay)
+
+        Neighbors(NodeCell floor, NodeCell ceiling) {
+            this.floor = floor;
+            this.ceiling = ceiling;
+        }
+    }
+
+    /**
+     * Busca en un solo descenso el piso y el techo de un valor. Si hay celdas
+     * con exactamente ese FM, ambos son la primera de ellas en orden.
+     */
+    public Neighbors floorCeiling(double FM) {
+        NodeCell floor = null;
+        NodeCell ceiling = null;
+        NodeCell node = root;
+        while (node != null) {
+            if (node.cell.FM < FM) {
+                floor = node;
+                node = node.right;
+            } else {
+                ceiling = node; // termina siendo el primero con FM >= valor
+                node = node.left;
+            }
+        }
+        if (ceiling != null && ceiling.cell.FM == FM) {
+            floor = ceiling;
+        }
+        return new Neighbors(floor, ceiling);
+    }
+
+    /**
+     * Nodo con el FM más cercano al valor dado, si está a una distancia de a
+     * lo sumo maxDistance. Ante dos candidatos a la misma distancia se elige
+     * el de FM menor, y entre celdas con el mismo FM, la primera en orden.
+     *
+     * Es la búsqueda a usar con valores escritos por el usuario, comparando
+     * con {@link #KEY_TOLERANCE}.
+     *
+     * @return el nodo más cercano, o null si no hay ninguno a esa distancia
+     */
+    public NodeCell nearest(double FM, double maxDistance) {
+        Neighbors neighbors = floorCeiling(FM);
+        NodeCell best = closer(FM, neighbors.floor, neighbors.ceiling, maxDistance);
+        if (best != null && compositeKey && best == neighbors.floor && best.cell.FM != FM) {
+            best = firstWithFM(best.cell.FM); // el piso estricto puede no ser el primero con su FM
+        }
+        return best;
+    }
+
+    /**
+     * Elige entre el piso y el techo el más cercano al valor (el menor ante
+     * empate), o null si ninguno está a una distancia de a lo sumo
+     * maxDistance.
+     */
+    private NodeCell closer(double FM, NodeCell floor, NodeCell ceiling, double maxDistance) {
+        NodeCell best;
+        if (floor == null) {
+            best = ceiling;
+        } else if (ceiling == null) {
+            best = floor;
+        } else {
+            best = (ceiling.cell.FM - FM < FM - floor.cell.FM) ? ceiling : floor;
+        }
+        if (best == null || Math.abs(best.cell.FM - FM) > maxDistance) {
+            return null;
+        }
+        return best;
+    }
+
+    /**
+     * Padre de un nodo del árbol, bajando desde la raíz por su clave exacta.
+     *
+     * @return el padre, o null si el nodo es la raíz o no está en el árbol
+     */
+    public NodeCell parentOf(NodeCell target) {
+        NodeCell parent = null;
+        NodeCell node = root;
+        while (node != null && node != target) {
+            parent = node;
+            node = (compare(target.cell, node.cell) < 0) ? node.left : node.right;
+        }
+        return (node == null) ? null : parent;
+    }
+
+    // ==================== CONTEXTO DE UN NODO ====================
+    /**
+     * Nivel, balance, padre, abuelo y tío del nodo más cercano al FM dado
+     * (dentro de {@link #KEY_TOLERANCE}), en un solo descenso: el piso y el
+     * techo del valor quedan en el camino recorrido, así que sus ancestros ya
+     * están guardados.
+     *
+     * @return el contexto del nodo, o null si no hay ninguno a esa distancia
+     */
+    @Override
+    public NodeContext describe(double FM) {
+        if (root == null) {
+            return null;
+        }
+        NodeCell[] path = new NodeCell[root.height];
+        int depth = 0;
+        int floorIndex = -1;
+        int ceilingIndex = -1;
+        NodeCell node = root;
+        while (node != null) {
+            path[depth] = node;
+            if (node.cell.FM < FM) {
+                floorIndex = depth;
+                node = node.right;
+            } else {
+                ceilingIndex = depth;
+                node = node.left;
+            }
+            depth++;
+        }
+        NodeCell floor = (floorIndex >= 0) ? path[floorIndex] : null;
+        NodeCell ceiling = (ceilingIndex >= 0) ? path[ceilingIndex] : null;
+        if (ceiling != null && ceiling.cell.FM == FM) {
+            floorIndex = ceilingIndex;
+            floor = ceiling;
+        }
+        NodeCell best = closer(FM, floor, ceiling, KEY_TOLERANCE);
+        if (best == null) {
+            return null;
+        }
+        if (compositeKey && best == floor && best.cell.FM != FM) {
+            // El primero con ese FM puede no estar en el camino: se baja por él
+            return describe(firstWithFM(best.cell.FM).cell);
+        }
+        int index = (best == floor) ? floorIndex : ceilingIndex;
+        return new NodeContext(path, index, getBalance(best));
+    }
+
+    /**
+     * Nivel, balance, padre, abuelo y tío del nodo que guarda la celda dada,
+     * bajando una sola vez por su clave exacta.
+     *
+     * @return el contexto del nodo, o null si la celda no está en el árbol
+     */
+    public NodeContext describe(Cell cell) {
+        if (root == null) {
+            return null;
+        }
+        NodeCell[] path = new NodeCell[root.height];
+        int depth = 0;
+        NodeCell node = root;
+        while (node != null) {
+            path[depth] = node;
+            int cmp = compare(cell, node.cell);
+            if (cmp == 0) {
+                return new NodeContext(path, depth, getBalance(node));
+            }
+            node = (cmp < 0) ? node.left : node.right;
+            depth++;
+        }
+        return null;
+    }
+
+    // ==================== RECORRIDOS PEREZOSOS ====================
+    /**
+     * Iterador inorden (FM ascendente). Usa memoria O(altura).
+     */
+    @Override
+    public Iterator<Cell> iterator() {
+        return inOrderIterator();
+    }
+
+    /**
+     * Iterador inorden (FM ascendente). Usa memoria O(altura).
+     */
+    public Iterator<Cell> inOrderIterator() {
+        return new TreeIterators.InOrder(this);
+    }
+
+    /**
+     * Iterador inorden inverso (FM descendente). Usa memoria O(altura).
+     */
+    public Iterator<Cell> reverseOrderIterator() {
+        return new TreeIterators.ReverseOrder(this);
+    }
+
+    /**
+     * Iterador preorden (raíz, izquierdo, derecho). Usa memoria O(altura).
+     */
+    public Iterator<Cell> preOrderIterator() {
+        return new TreeIterators.PreOrder(this);
+    }
+
+    /**
+     * Iterador por niveles. Usa una cola del ancho del nivel más poblado.
+     */
+    public Iterator<Cell> levelOrderIterator() {
+        return new TreeIterators.LevelOrder(this);
+    }
+
+    /**
+     * Spliterator inorden con tamaño exacto, ordenado por FM. Se divide
+     * entregando subárboles completos.
+     */
+    @Override
+    public Spliterator<Cell> spliterator() {
+        return new CellSpliterator(this);
+    }
+
+    /**
+     * Stream secuencial y perezoso de las celdas en orden de FM. Permite cortar
+     * el recorrido antes (por ejemplo con findFirst o limit).
+     */
+    public Stream<Cell> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Stream paralelo de las celdas. Cada hilo recibe subárboles completos, con
+     * tamaños exactos tomados de los nodos. Se ejecuta en el ForkJoinPool común
+     * (o en el pool desde el que se invoque la operación terminal).
+     */
+    public Stream<Cell> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    // ==================== RECORRIDO INORDEN ====================
+    /**
+     * Retorna una lista de celdas ordenadas por FM (inorden).
+     *
+     * Copia todas las celdas; para solo recorrerlas conviene iterar el árbol
+     * directamente o usar {@link #stream()}.
+     */
+    public List<Cell> inOrderAdding() {
+        List<Cell> result = new ArrayList<>();
+        inOrderRecursive(root, result);
+        return result;
+    }
+
+    private void inOrderRecursive(NodeCell node, List<Cell> result) {
+        if (node != null) {
+            inOrderRecursive(node.left, result);
+            result.add(node.cell);
+            inOrderRecursive(node.right, result);
+        }
+    }
+
+    // ==================== MÉTODOS AUXILIARES ====================
+    /**
+     * Consulta de un nodo por su FM tal como lo escribe el usuario: se usa el
+     * nodo más cercano dentro de {@link #KEY_TOLERANCE}.
+     */
+    @Override
+    public void searchNode(double FM) {
+        NodeCell node = nearest(FM, KEY_TOLERANCE);
+        if (node != null) {
+            System.out.println("Node with FM=" + FM + " exists");
+            showNodeInfo(node.cell.FM);
+        } else {
+            System.out.println("Node with FM=" + FM + " doesn't exist");
+        }
+    }
+
+    /**
+     * Encuentra el nivel de un nodo con temperatura específica
+     */
+    public int getNodeLevel(double temperatura) {
+        NodeContext context = describe(temperatura);
+        return context != null ? context.level : -1;
+    }
+
+    /**
+     * Encuentra el factor de balance de un nodo específico
+     */
+    public int getNodeBalance(double temperatura) {
+        NodeContext context = describe(temperatura);
+        return context != null ? context.balance : Integer.MIN_VALUE;
+    }
+
+    /**
+     * Encuentra el padre de un nodo
+     */
+    public Cell getParentNode(double temperatura) {
+        NodeContext context = describe(temperatura);
+        return (context != null && context.parent != null) ? context.parent.cell : null;
+    }
+
+    /**
+     * Encuentra el abuelo de un nodo
+     */
+    public Cell getGrandparentNode(double temperatura) {
+        NodeContext context = describe(temperatura);
+        return (context != null && context.grandparent != null) ? context.grandparent.cell : null;
+    }
+
+    /**
+     * Encuentra el tío de un nodo
+     */
+    public Cell getUncleNode(double temperatura) {
+        NodeContext context = describe(temperatura);
+        return (context != null && context.uncle != null) ? context.uncle.cell : null;
     }
 
 }
@@ -0,0 +1,131 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Índice ordenado sobre un {@link ConcurrentSkipListMap} del JDK.
+ *
+ * Las celdas son a la vez clave y valor del mapa, ordenadas con el mismo
+ * criterio que los árboles. Es seguro para hilos sin bloqueos: las lecturas y
+ * escrituras concurrentes no se bloquean entre sí y la iteración es
+ * débilmente consistente (nunca lanza ConcurrentModificationException). El
+ * tamaño se cuenta aparte porque el del mapa es O(n).
+ *
+ * @author Rashid
+ */
+public class SkipListCellIndex implements OrderedCellIndex {
+
+    private final boolean compositeKey;
+    private final ConcurrentSkipListMap<Cell, Cell> map;
+    private final AtomicInteger size = new AtomicInteger();
+
+    public SkipListCellIndex() {
+        this(false);
+    }
+
+    /**
+     * @param compositeKey true para usar la clave (FM, ISO3)
+     */
+    public SkipListCellIndex(boolean compositeKey) {
+        this.compositeKey = compositeKey;
+        this.map = new ConcurrentSkipListMap<>(CellKeyOrder.comparator(compositeKey));
+    }
+
+    /**
+     * Celda auxiliar que solo sirve como clave de búsqueda. Un ISO3 null
+     * queda antes que cualquier código, así que (FM, null) es la menor clave
+     * con ese FM.
+     */
+    private static Cell probe(double FM, String ISO3) {
+        return new Cell(0, null, ISO3, FM);
+    }
+
+    @Override
+    public boolean insert(Cell cell) {
+        if (map.putIfAbsent(cell, cell) != null) {
+            return false;
+        }
+        size.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public boolean delete(double FM) {
+        Cell found = find(FM);
+        return found != null && delete(found.FM, found.ISO3);
+    }
+
+    @Override
+    public boolean delete(double FM, String ISO3) {
+        Cell found = find(FM, ISO3);
+        if (found == null || !map.remove(found, found)) {
+            return false;
+        }
+        size.decrementAndGet();
+        return true;
+    }
+
+    @Override
+    public Cell find(double FM) {
+        Cell first = map.ceilingKey(probe(FM, null));
+        return (first != null && first.FM == FM) ? first : null;
+    }
+
+    @Override
+    public Cell find(double FM, String ISO3) {
+        Cell found = map.get(probe(FM, ISO3));
+        return (found != null && Objects.equals(ISO3, found.ISO3)) ? found : null;
+    }
+
+    @Override
+    public List<Cell> rangeQuery(double lo, double hi) {
+        List<Cell> result = new ArrayList<>();
+        if (lo > hi) {
+            return result;
+        }
+        // Desde la menor clave con FM = lo hasta antes de la menor con FM > hi
+        Map<Cell, Cell> range = map.subMap(probe(lo, null), true, probe(Math.nextUp(hi), null), false);
+        result.addAll(range.keySet());
+        return result;
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Vacía el índice e inserta las celdas. No es atómico respecto a otros
+     * hilos: durante la carga pueden verse contenidos parciales.
+     */
+    @Override
+    public void buildFrom(Collection<Cell> cells) {
+        map.clear();
+        size.set(0);
+        for (Cell cell : cells) {
+            insert(cell);
+        }
+    }
+
+    @Override
+    public boolean isCompositeKey() {
+        return compositeKey;
+    }
+
+    @Override
+    public Iterator<Cell> iterator() {
+        return Collections.unmodifiableSet(map.keySet()).iterator(); // remove() desajustaría el contador
+    }
+}
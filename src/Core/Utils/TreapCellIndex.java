@@ -0,0 +1,131 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Utils;
+
+import java.util.Random;
+
+/**
+ * Índice ordenado sobre un treap: árbol de búsqueda por clave que además es
+ * un heap por una prioridad aleatoria asignada a cada nodo.
+ *
+ * La altura esperada es O(log n) sin guardar alturas ni colores; insertar y
+ * eliminar hacen en promedio menos de dos rotaciones.
+ *
+ * @author Rashid
+ */
+public class TreapCellIndex extends LinkedCellIndex<TreapCellIndex.TreapNode> {
+
+    static final class TreapNode extends LinkedCellIndex.Node<TreapNode> {
+
+        final int priority;
+
+        TreapNode(Cell cell, int priority) {
+            super(cell);
+            this.priority = priority;
+        }
+    }
+
+    private final Random random;
+
+    public TreapCellIndex() {
+        this(false);
+    }
+
+    /**
+     * @param compositeKey true para usar la clave (FM, ISO3)
+     */
+    public TreapCellIndex(boolean compositeKey) {
+        this(compositeKey, new Random());
+    }
+
+    /**
+     * @param compositeKey true para usar la clave (FM, ISO3)
+     * @param random generador de prioridades (con semilla fija el árbol es
+     * reproducible)
+     */
+    public TreapCellIndex(boolean compositeKey, Random random) {
+        super(compositeKey);
+        this.random = random;
+    }
+
+    private static TreapNode rotateLeft(TreapNode node) {
+        TreapNode aux = node.right;
+        node.right = aux.left;
+        aux.left = node;
+        return aux;
+    }
+
+    private static TreapNode rotateRight(TreapNode node) {
+        TreapNode aux = node.left;
+        node.left = aux.right;
+        aux.right = node;
+        return aux;
+    }
+
+    // ==================== INSERCIÓN ====================
+    @Override
+    public boolean insert(Cell cell) {
+        int before = size;
+        root = insert(root, cell);
+        if (size == before) {
+            return false;
+        }
+        modCount++;
+        return true;
+    }
+
+    private TreapNode insert(TreapNode node, Cell cell) {
+        if (node == null) {
+            size++;
+            return new TreapNode(cell, random.nextInt());
+        }
+        int cmp = compare(cell.FM, cell.ISO3, node.cell);
+        if (cmp < 0) {
+            node.left = insert(node.left, cell);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node); // el hijo sube para mantener el heap
+            }
+        } else if (cmp > 0) {
+            node.right = insert(node.right, cell);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        return node; // si la clave ya existía no se modifica nada
+    }
+
+    // ==================== ELIMINACIÓN ====================
+    @Override
+    protected void deleteExisting(double FM, String ISO3) {
+        root = delete(root, FM, ISO3);
+    }
+
+    private TreapNode delete(TreapNode node, double FM, String ISO3) {
+        int cmp = compare(FM, ISO3, node.cell);
+        if (cmp < 0) {
+            node.left = delete(node.left, FM, ISO3);
+            return node;
+        }
+        if (cmp > 0) {
+            node.right = delete(node.right, FM, ISO3);
+            return node;
+        }
+        // Encontrado: se baja rotando con el hijo de mayor prioridad hasta ser hoja
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        if (node.left.priority > node.right.priority) {
+            node = rotateRight(node);
+            node.right = delete(node.right, FM, ISO3);
+        } else {
+            node = rotateLeft(node);
+            node.left = delete(node.left, FM, ISO3);
+        }
+        return node;
+    }
+}
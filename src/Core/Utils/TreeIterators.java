@@ -0,0 +1,192 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Utils;
+
+import java.util.ArrayDeque;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iteradores perezosos sobre un {@link SelfBalancingBST}.
+ *
+ * En lugar de copiar todas las celdas a una lista, cada iterador guarda solo
+ * una pila con el camino pendiente, de tamaño O(altura). La excepción es el
+ * recorrido por niveles, que necesita una cola del ancho de un nivel.
+ *
+ * Si el árbol se modifica mientras se recorre, el iterador lanza
+ * {@link ConcurrentModificationException} en lugar de devolver datos
+ * inconsistentes.
+ *
+ * @author Rashid
+ */
+final class TreeIterators {
+
+    private TreeIterators() {
+    }
+
+    /**
+     * Base común: controla las modificaciones concurrentes del árbol.
+     */
+    private abstract static class TreeIterator implements Iterator<Cell> {
+
+        private final SelfBalancingBST tree;
+        private final int expectedModCount;
+
+        TreeIterator(SelfBalancingBST tree) {
+            this.tree = tree;
+            this.expectedModCount = tree.modCount;
+        }
+
+        final void checkForComodification() {
+            if (tree.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public final Cell next() {
+            checkForComodification();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return nextNode().cell;
+        }
+
+        abstract NodeCell nextNode();
+    }
+
+    /**
+     * Recorrido inorden (FM ascendente).
+     */
+    static final class InOrder extends TreeIterator {
+
+        private final ArrayDeque<NodeCell> stack;
+
+        InOrder(SelfBalancingBST tree) {
+            super(tree);
+            this.stack = new ArrayDeque<>(Math.max(1, tree.getHeight(tree.root)));
+            pushLeftPath(tree.root);
+        }
+
+        private void pushLeftPath(NodeCell node) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        NodeCell nextNode() {
+            NodeCell node = stack.pop();
+            pushLeftPath(node.right);
+            return node;
+        }
+    }
+
+    /**
+     * Recorrido inorden inverso (FM descendente).
+     */
+    static final class ReverseOrder extends TreeIterator {
+
+        private final ArrayDeque<NodeCell> stack;
+
+        ReverseOrder(SelfBalancingBST tree) {
+            super(tree);
+            this.stack = new ArrayDeque<>(Math.max(1, tree.getHeight(tree.root)));
+            pushRightPath(tree.root);
+        }
+
+        private void pushRightPath(NodeCell node) {
+            while (node != null) {
+                stack.push(node);
+                node = node.right;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        NodeCell nextNode() {
+            NodeCell node = stack.pop();
+            pushRightPath(node.left);
+            return node;
+        }
+    }
+
+    /**
+     * Recorrido preorden (raíz, izquierdo, derecho).
+     */
+    static final class PreOrder extends TreeIterator {
+
+        private final ArrayDeque<NodeCell> stack;
+
+        PreOrder(SelfBalancingBST tree) {
+            super(tree);
+            this.stack = new ArrayDeque<>(Math.max(1, tree.getHeight(tree.root)) + 1);
+            if (tree.root != null) {
+                stack.push(tree.root);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        NodeCell nextNode() {
+            NodeCell node = stack.pop();
+            // Se apila primero el derecho para visitar antes el izquierdo
+            if (node.right != null) {
+                stack.push(node.right);
+            }
+            if (node.left != null) {
+                stack.push(node.left);
+            }
+            return node;
+        }
+    }
+
+    /**
+     * Recorrido por niveles (de la raíz hacia abajo, de izquierda a derecha).
+     */
+    static final class LevelOrder extends TreeIterator {
+
+        private final ArrayDeque<NodeCell> queue = new ArrayDeque<>();
+
+        LevelOrder(SelfBalancingBST tree) {
+            super(tree);
+            if (tree.root != null) {
+                queue.add(tree.root);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !queue.isEmpty();
+        }
+
+        @Override
+        NodeCell nextNode() {
+            NodeCell node = queue.poll();
+            if (node.left != null) {
+                queue.add(node.left);
+            }
+            if (node.right != null) {
+                queue.add(node.right);
+            }
+            return node;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Interface.java to edit this template
+ */
+package Core.Utils;
+
+/**
+ * Observador de los cambios de un {@link SelfBalancingBST}. Permite mantener
+ * estructuras auxiliares (índices secundarios, agregados, etc.) sincronizadas
+ * con el árbol sin volver a recorrerlo.
+ *
+ * @author Rashid
+ */
+public interface TreeListener {
+
+    /**
+     * Se llama cuando una celda quedó insertada en el árbol (no se llama si la
+     * inserción se descartó por duplicada).
+     */
+    void cellInserted(Cell cell);
+
+    /**
+     * Se llama cuando una celda fue eliminada del árbol.
+     */
+    void cellRemoved(Cell cell);
+
+    /**
+     * Se llama cuando el contenido del árbol se reemplazó por completo (por
+     * ejemplo con una carga masiva). El observador debe reconstruirse a partir
+     * del árbol.
+     */
+    void treeRebuilt(SelfBalancingBST tree);
+}
@@ -0,0 +1,150 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Índice secundario de un solo año: las celdas ordenadas por su medición de
+ * ese año ({@link Cell#measurement(int)} en la posición del año).
+ *
+ * Los valores se guardan en un arreglo primitivo ordenado y las celdas en un
+ * arreglo paralelo, así que "países con Temp(año) mayor/menor a X" se responde
+ * con una búsqueda binaria más la copia de los k resultados: O(log n + k).
+ * Los resultados salen en el orden del índice (por la medición del año); quien
+ * necesite el orden del árbol los ordena con {@link SelfBalancingBST#comparator()}.
+ *
+ * Insertar o eliminar usa búsqueda binaria y un corrimiento del arreglo, que
+ * es O(n): con un índice por año cada cambio del árbol cuesta O(n · años).
+ * Con unos cientos de países el corrimiento es una copia de memoria de pocos
+ * KB; para volúmenes mucho mayores convendría un índice basado en árbol.
+ *
+ * Las celdas que no tienen medición para ese año no se indexan.
+ *
+ * @author Rashid
+ */
+public class YearIndex {
+
+    private final int position;   // posición del año dentro de las mediciones
+    private double[] values;      // mediciones del año, ordenadas
+    private Cell[] cells;         // celda de cada medición
+    private int count;
+
+    /**
+     * Crea el índice de un año a partir de un conjunto de celdas.
+     *
+     * @param position posición del año dentro de las mediciones (0 = primer año)
+     * @param source celdas a indexar
+     */
+    public YearIndex(int position, Cell[] source) {
+        this.position = position;
+        Cell[] sorted = new Cell[source.length];
+        int n = 0;
+        for (Cell cell : source) {
+            if (hasValue(cell)) {
+                sorted[n++] = cell;
+            }
+        }
+        Arrays.sort(sorted, 0, n, Comparator.comparingDouble(c -> c.measurement(position)));
+
+        this.cells = sorted;
+        this.values = new double[sorted.length];
+        for (int i = 0; i < n; i++) {
+            values[i] = sorted[i].measurement(position);
+        }
+        this.count = n;
+    }
+
+    private boolean hasValue(Cell cell) {
+        return position < cell.measurementCount();
+    }
+
+    /**
+     * Cantidad de celdas indexadas.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Primera posición cuyo valor es mayor o igual (o estrictamente mayor) al
+     * dado.
+     */
+    private int lowerBound(double value, boolean strict) {
+        int lo = 0;
+        int hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < value || (strict && values[mid] == value)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Celdas con medición estrictamente mayor al valor, de menor a mayor
+     * medición.
+     */
+    public List<Cell> greaterThan(double value) {
+        int from = lowerBound(value, true);
+        return new ArrayList<>(Arrays.asList(cells).subList(from, count));
+    }
+
+    /**
+     * Celdas con medición estrictamente menor al valor, de menor a mayor
+     * medición.
+     */
+    public List<Cell> lessThan(double value) {
+        int to = lowerBound(value, false);
+        return new ArrayList<>(Arrays.asList(cells).subList(0, to));
+    }
+
+    /**
+     * Agrega una celda al índice manteniendo el orden.
+     */
+    public void insert(Cell cell) {
+        if (!hasValue(cell)) {
+            return;
+        }
+        if (count == values.length) {
+            int capacity = Math.max(8, count + (count >> 1));
+            values = Arrays.copyOf(values, capacity);
+            cells = Arrays.copyOf(cells, capacity);
+        }
+        double value = cell.measurement(position);
+        int at = lowerBound(value, true);
+        System.arraycopy(values, at, values, at + 1, count - at);
+        System.arraycopy(cells, at, cells, at + 1, count - at);
+        values[at] = value;
+        cells[at] = cell;
+        count++;
+    }
+
+    /**
+     * Quita una celda del índice. Entre valores iguales se busca la misma
+     * instancia de celda.
+     */
+    public void remove(Cell cell) {
+        if (!hasValue(cell)) {
+            return;
+        }
+        double value = cell.measurement(position);
+        for (int i = lowerBound(value, false); i < count && values[i] == value; i++) {
+            if (cells[i] == cell) {
+                System.arraycopy(values, i + 1, values, i, count - i - 1);
+                System.arraycopy(cells, i + 1, cells, i, count - i - 1);
+                count--;
+                cells[count] = null;
+                return;
+            }
+        }
+    }
+}
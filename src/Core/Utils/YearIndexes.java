@@ -0,0 +1,104 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Conjunto de índices secundarios, uno por año ({@link YearIndex}).
+ *
+ * Se registra como {@link TreeListener} de un {@link SelfBalancingBST}: se
+ * reconstruye en paralelo (un año por tarea) cuando el árbol se carga
+ * masivamente, y se actualiza en cada inserción o eliminación (O(n) por año,
+ * ver {@link YearIndex}). Es opcional: solo existe si alguien lo registra en
+ * el árbol.
+ *
+ * Ejemplo de uso:
+ *   YearIndexes indices = new YearIndexes(1961, 62);
+ *   arbol.addListener(indices);
+ *   arbol.buildFrom(celdas);
+ *   List&lt;Cell&gt; calurosos = indices.greaterThan(2020, 1.5);
+ *
+ * @author Rashid
+ */
+public class YearIndexes implements TreeListener {
+
+    private final int firstYear;
+    private final YearIndex[] years;
+
+    /**
+     * @param firstYear año que corresponde a la primera medición
+     * @param yearCount cantidad de años indexados
+     */
+    public YearIndexes(int firstYear, int yearCount) {
+        this.firstYear = firstYear;
+        this.years = new YearIndex[yearCount];
+        rebuild(new Cell[0]);
+    }
+
+    /**
+     * Reconstruye todos los años en paralelo a partir de las celdas dadas.
+     */
+    private void rebuild(Cell[] cells) {
+        IntStream.range(0, years.length).parallel()
+                .forEach(y -> years[y] = new YearIndex(y, cells));
+    }
+
+    /**
+     * Índice de un año, o null si el año está fuera del rango indexado.
+     */
+    public YearIndex forYear(int year) {
+        int position = year - firstYear;
+        if (position < 0 || position >= years.length) {
+            return null;
+        }
+        return years[position];
+    }
+
+    /**
+     * Celdas cuya medición del año es estrictamente mayor al valor, de menor a
+     * mayor medición.
+     */
+    public List<Cell> greaterThan(int year, double value) {
+        YearIndex index = forYear(year);
+        return (index != null) ? index.greaterThan(value) : new ArrayList<>();
+    }
+
+    /**
+     * Celdas cuya medición del año es estrictamente menor al valor, de menor a
+     * mayor medición.
+     */
+    public List<Cell> lessThan(int year, double value) {
+        YearIndex index = forYear(year);
+        return (index != null) ? index.lessThan(value) : new ArrayList<>();
+    }
+
+    // ==================== SINCRONIZACIÓN CON EL ÁRBOL ====================
+    @Override
+    public void cellInserted(Cell cell) {
+        for (YearIndex index : years) {
+            index.insert(cell);
+        }
+    }
+
+    @Override
+    public void cellRemoved(Cell cell) {
+        for (YearIndex index : years) {
+            index.remove(cell);
+        }
+    }
+
+    @Override
+    public void treeRebuilt(SelfBalancingBST tree) {
+        Cell[] cells = new Cell[tree.size()];
+        int i = 0;
+        for (Cell cell : tree) {
+            cells[i++] = cell;
+        }
+        rebuild(cells);
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Utils;
+
+import java.util.Arrays;
+
+/**
+ * Sumas y cantidades por año, más la suma y cantidad de FM de todo el árbol,
+ * mantenidas al día con cada cambio.
+ *
+ * Se registra como {@link TreeListener}: cada inserción o eliminación suma o
+ * resta las mediciones de la celda en O(años), y una carga masiva recalcula
+ * todo en una pasada. Los promedios se leen en O(1) sin recorrer el árbol.
+ *
+ * Si las celdas guardan sus mediciones en un {@link MeasurementStore}, la
+ * carga masiva toma las sumas por año de {@link MeasurementStore#yearlyStats()},
+ * que recorre las columnas en secuencia (y en paralelo si son muchas filas),
+ * en lugar de leer celda por celda. El almacén debe estar registrado en el
+ * árbol antes que este objeto, para que ya sepa qué filas siguen activas.
+ *
+ * Ejemplo de uso:
+ *   YearlyAggregates promedios = new YearlyAggregates(1961, 62);
+ *   arbol.addListener(promedios);
+ *   arbol.buildFrom(celdas);
+ *   double promedio2020 = promedios.yearAverage(2020);
+ *
+ * @author Rashid
+ */
+public class YearlyAggregates implements TreeListener {
+
+    private final int firstYear;
+    private final MeasurementStore store; // mediciones en columnas, o null
+    private final double[] sums;   // suma de las mediciones de cada año
+    private final long[] counts;   // celdas con medición en cada año
+    private double fmSum;          // suma de FM de todas las celdas
+    private long fmCount;          // cantidad de celdas
+
+    /**
+     * @param firstYear año que corresponde a la primera medición
+     * @param yearCount cantidad de años
+     */
+    public YearlyAggregates(int firstYear, int yearCount) {
+        this(firstYear, yearCount, null);
+    }
+
+    /**
+     * @param firstYear año que corresponde a la primera medición
+     * @param yearCount cantidad de años
+     * @param store almacén de las mediciones de las celdas, ya registrado en
+     * el árbol, o null para leerlas celda por celda
+     */
+    public YearlyAggregates(int firstYear, int yearCount, MeasurementStore store) {
+        this.firstYear = firstYear;
+        this.store = store;
+        this.sums = new double[yearCount];
+        this.counts = new long[yearCount];
+    }
+
+    // ==================== CONSULTAS ====================
+    /**
+     * Promedio de un año sobre las celdas que tienen medición para ese año (0
+     * si no hay ninguna o el año está fuera de rango).
+     */
+    public double yearAverage(int year) {
+        int position = year - firstYear;
+        if (position < 0 || position >= sums.length || counts[position] == 0) {
+            return 0.0;
+        }
+        return sums[position] / counts[position];
+    }
+
+    /**
+     * Cantidad de celdas con medición para el año.
+     */
+    public long yearCount(int year) {
+        int position = year - firstYear;
+        return (position < 0 || position >= counts.length) ? 0 : counts[position];
+    }
+
+    /**
+     * Promedio de FM de todas las celdas (0 si no hay ninguna).
+     */
+    public double globalAverage() {
+        return (fmCount == 0) ? 0.0 : fmSum / fmCount;
+    }
+
+    /**
+     * Cantidad de celdas contabilizadas.
+     */
+    public long size() {
+        return fmCount;
+    }
+
+    // ==================== SINCRONIZACIÓN CON EL ÁRBOL ====================
+    private void apply(Cell cell, int sign) {
+        int years = Math.min(cell.measurementCount(), sums.length);
+        for (int y = 0; y < years; y++) {
+            sums[y] += sign * cell.measurement(y);
+            counts[y] += sign;
+            if (counts[y] == 0) {
+                sums[y] = 0.0; // sin celdas: descartar el error de redondeo acumulado
+            }
+        }
+        fmSum += sign * cell.FM;
+        fmCount += sign;
+        if (fmCount == 0) {
+            fmSum = 0.0;
+        }
+    }
+
+    @Override
+    public void cellInserted(Cell cell) {
+        apply(cell, 1);
+    }
+
+    @Override
+    public void cellRemoved(Cell cell) {
+        apply(cell, -1);
+    }
+
+    @Override
+    public void treeRebuilt(SelfBalancingBST tree) {
+        Arrays.fill(sums, 0.0);
+        Arrays.fill(counts, 0);
+        fmSum = 0.0;
+        fmCount = 0;
+        // Todas las celdas del árbol tienen su fila activa en el almacén
+        if (store != null && store.liveCount() == tree.size()) {
+            CellStats[] years = store.yearlyStats();
+            for (int y = 0; y < Math.min(years.length, sums.length); y++) {
+                sums[y] = years[y].sum;
+                counts[y] = years[y].count;
+            }
+            for (Cell cell : tree) {
+                fmSum += cell.FM;
+                fmCount++;
+            }
+            return;
+        }
+        for (Cell cell : tree) {
+            apply(cell, 1);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package Core.Utils;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Calcula en una sola pasada el resumen ({@link CellStats}) de todos los años
+ * de un {@link MeasurementStore}: cantidad, suma, mínimo, máximo y suma de
+ * cuadrados, de donde salen promedio y varianza.
+ *
+ * Las filas se recorren por bloques; dentro de un bloque cada columna se lee
+ * de forma secuencial y se acumula en arreglos primitivos, sin crear objetos
+ * por valor. Con muchas filas el rango se divide con fork/join y los
+ * acumuladores parciales se suman al final.
+ *
+ * @author Rashid
+ */
+final class YearlyStatsKernel {
+
+    static final int BLOCK_ROWS = 1 << 12;          // filas por bloque (caben en caché por columna)
+    static final int PARALLEL_THRESHOLD = 1 << 15;  // filas mínimas para repartir entre núcleos
+
+    private YearlyStatsKernel() {
+    }
+
+    /**
+     * Resumen de cada año sobre las filas activas.
+     *
+     * @param columns columnas del almacén, una por año
+     * @param live filas activas
+     * @param rowCount cantidad de filas usadas
+     */
+    static CellStats[] compute(double[][] columns, boolean[] live, int rowCount) {
+        Accumulator result = (rowCount >= PARALLEL_THRESHOLD)
+                ? ForkJoinPool.commonPool().invoke(new Task(columns, live, 0, rowCount))
+                : scan(columns, live, 0, rowCount);
+        return result.toStats();
+    }
+
+    /**
+     * Recorre las filas [from, to) por bloques.
+     */
+    private static Accumulator scan(double[][] columns, boolean[] live, int from, int to) {
+        Accumulator acc = new Accumulator(columns.length);
+        for (int start = from; start < to; start += BLOCK_ROWS) {
+            int end = Math.min(to, start + BLOCK_ROWS);
+            for (int y = 0; y < columns.length; y++) {
+                double[] column = columns[y];
+                long count = 0;
+                double sum = 0;
+                double sumOfSquares = 0;
+                double min = acc.min[y];
+                double max = acc.max[y];
+                for (int row = start; row < end; row++) {
+                    double value = column[row];
+                    if (live[row] && value == value) { // value == value descarta NaN
+                        count++;
+                        sum += value;
+                        sumOfSquares += value * value;
+                        min = (value < min) ? value : min; // sin NaN no hace falta Math.min
+                        max = (value > max) ? value : max;
+                    }
+                }
+                acc.count[y] += count;
+                acc.sum[y] += sum;
+                acc.sumOfSquares[y] += sumOfSquares;
+                acc.min[y] = min;
+                acc.max[y] = max;
+            }
+        }
+        return acc;
+    }
+
+    /**
+     * Tarea que divide el rango de filas en mitades hasta que es pequeño.
+     */
+    private static final class Task extends RecursiveTask<Accumulator> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double[][] columns;
+        private final boolean[] live;
+        private final int from;
+        private final int to;
+
+        Task(double[][] columns, boolean[] live, int from, int to) {
+            this.columns = columns;
+            this.live = live;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Accumulator compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                return scan(columns, live, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            Task left = new Task(columns, live, from, mid);
+            left.fork();
+            Accumulator right = new Task(columns, live, mid, to).compute();
+            return left.join().add(right);
+        }
+    }
+
+    /**
+     * Acumuladores por año en arreglos primitivos.
+     */
+    private static final class Accumulator {
+
+        final long[] count;
+        final double[] sum;
+        final double[] min;
+        final double[] max;
+        final double[] sumOfSquares;
+
+        Accumulator(int years) {
+            count = new long[years];
+            sum = new double[years];
+            min = new double[years];
+            max = new double[years];
+            sumOfSquares = new double[years];
+            Arrays.fill(min, Double.POSITIVE_INFINITY);
+            Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        }
+
+        Accumulator add(Accumulator other) {
+            for (int y = 0; y < count.length; y++) {
+                count[y] += other.count[y];
+                sum[y] += other.sum[y];
+                sumOfSquares[y] += other.sumOfSquares[y];
+                min[y] = Math.min(min[y], other.min[y]);
+                max[y] = Math.max(max[y], other.max[y]);
+            }
+            return this;
+        }
+
+        CellStats[] toStats() {
+            CellStats[] stats = new CellStats[count.length];
+            for (int y = 0; y < stats.length; y++) {
+                stats[y] = (count[y] == 0) ? CellStats.EMPTY
+                        : new CellStats(count[y], sum[y], min[y], max[y], sumOfSquares[y]);
+            }
+            return stats;
+        }
+    }
+}
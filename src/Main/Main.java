@@ -10,14 +10,18 @@
  */
 package Main;
 
-import Core.Utils.CSVReaderUtil;
+import Core.Utils.AggregateBST;
+import Core.Utils.CellSnapshot;
+import Core.Utils.MutationLog;
 import Core.Utils.SelfBalancingBST;
 import Core.Utils.Cell;
+import Core.Utils.CellStats;
+import Core.Utils.NodeCell;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
 import java.util.Locale;
-import java.util.function.Predicate;
 
 /**
  * Clase principal que contiene el menú interactivo para manipular un Árbol AVL
@@ -27,6 +31,8 @@ import java.util.function.Predicate;
  */
 public class Main {
 
+    private static final String DATA_PATH = "src/Main/data.csv";
+
     public static void main(String[] args) {
         Scanner in = new Scanner(System.in);
         // Uso Locale.US para forzar el separador decimal como '.' en lugar de ','
@@ -34,7 +40,8 @@ public class Main {
 
         // Cargar nodos desde el archivo CSV
         System.out.println("Creando los nodos...");
-        ArrayList<Cell> cells = CSVReaderUtil.readCSV("src/Main/data.csv");
+        // Si hay un snapshot binario al día se usa en lugar de parsear el CSV
+        ArrayList<Cell> cells = CellSnapshot.load(DATA_PATH, null);
         System.out.println("Nodos creados con éxito\n");
 
         // Mostrar nodos cargados antes de armar el árbol
@@ -45,11 +52,19 @@ public class Main {
             }
         }
 
-        // Crear el árbol AVL e insertar los registros
+        // Crear el árbol AVL con carga masiva (ordena una vez y arma balanceado).
+        // Se usa clave compuesta (FM, ISO3) para no perder países con el mismo FM.
         System.out.println("\nCreando el árbol...\n");
-        SelfBalancingBST ArbolInicial = new SelfBalancingBST();
-        for (Cell c : cells) {
-            ArbolInicial.addNode(c);
+        AggregateBST<CellStats> ArbolInicial = new AggregateBST<>(CellStats.FM_MONOID, true);
+        ArbolInicial.buildFrom(cells);
+        CellSnapshot.saveIfStale(DATA_PATH, ArbolInicial); // el próximo arranque no lee el CSV
+
+        // Aplicar los cambios guardados en sesiones anteriores y registrar los nuevos
+        MutationLog registro = null;
+        try {
+            registro = MutationLog.open(DATA_PATH, ArbolInicial, null);
+        } catch (IOException e) {
+            System.out.println("No se pudo abrir el registro de cambios: " + e.getMessage());
         }
 
         // Mostrar el árbol recién creado por niveles
@@ -84,7 +99,9 @@ public class Main {
                     System.out.print("Ingrese el promedio de la variación de la temperatura del país: ");
                     double avgTempVar = in.nextDouble();
                     Cell cell = new Cell(0, country, ISO3, avgTempVar);
-                    ArbolInicial.addNode(cell);
+                    if (!ArbolInicial.insert(cell)) {
+                        System.out.println("Duplicated (FM, ISO3) = (" + cell.FM + ", " + cell.ISO3 + "), not inserted");
+                    }
                     break;
 
                 case 2:
@@ -92,7 +109,13 @@ public class Main {
                     System.out.println("-- ELIMINAR UN NODO --");
                     System.out.print("Ingrese el promedio de la variación de la temperatura del país a eliminar: ");
                     avgTempVar = in.nextDouble();
-                    ArbolInicial.deleteNode(avgTempVar);
+                    // Igual que la búsqueda: el nodo más cercano dentro de la tolerancia, y se borra su clave exacta
+                    NodeCell aBorrar = ArbolInicial.nearest(avgTempVar, SelfBalancingBST.KEY_TOLERANCE);
+                    if (aBorrar == null) {
+                        System.out.println("El dato no existe");
+                    } else {
+                        ArbolInicial.delete(aBorrar.cell.FM, aBorrar.cell.ISO3);
+                    }
                     break;
 
                 case 3:
@@ -117,17 +140,17 @@ public class Main {
 
                         switch (busNCC) {
                             case 1: {
-                                double promedio = ArbolInicial.sumOfElementsValue() / ArbolInicial.getCard();
+                                double promedio = ArbolInicial.aggregateAll().average();
                                 buscarConCriterio(ArbolInicial, in,
                                         "Promedio: " + promedio,
-                                        c -> c.FM > promedio);
+                                        ArbolInicial.tailQuery(promedio, false));
                                 break;
                             }
                             case 2: {
-                                double promedio = ArbolInicial.sumOfElementsValue() / ArbolInicial.getCard();
+                                double promedio = ArbolInicial.aggregateAll().average();
                                 buscarConCriterio(ArbolInicial, in,
                                         "Promedio: " + promedio,
-                                        c -> c.FM < promedio);
+                                        ArbolInicial.headQuery(promedio, false));
                                 break;
                             }
                             case 3: {
@@ -135,7 +158,7 @@ public class Main {
                                 double dato = in.nextDouble();
                                 buscarConCriterio(ArbolInicial, in,
                                         "Buscando nodos con valor mayor o igual a " + dato,
-                                        c -> c.FM >= dato);
+                                        ArbolInicial.tailQuery(dato, true));
                                 break;
                             }
                             case 4:
@@ -169,6 +192,15 @@ public class Main {
                     break;
             }
         }
+
+        // Confirmar en disco los últimos cambios antes de salir
+        if (registro != null) {
+            try {
+                registro.close();
+            } catch (IOException e) {
+                System.out.println("No se pudo cerrar el registro de cambios: " + e.getMessage());
+            }
+        }
     }
 
     /**
@@ -178,22 +210,17 @@ public class Main {
      * @param arbol Árbol AVL donde se hace la búsqueda
      * @param in Scanner para leer selección del usuario
      * @param mensaje Mensaje inicial que se imprime antes de listar resultados
-     * @param criterio Condición que debe cumplir el nodo para ser mostrado
+     * @param encontrados Nodos que cumplen el criterio, ya obtenidos con una
+     * consulta por rango del árbol (ordenados por FM)
      */
     private static void buscarConCriterio(SelfBalancingBST arbol, Scanner in,
-            String mensaje, Predicate<Cell> criterio) {
+            String mensaje, List<Cell> encontrados) {
         System.out.println(mensaje);
 
-        List<Cell> encontrados = new ArrayList<>();
         int index = 1;
-
-        // Recorrer el árbol en orden e ir filtrando según el criterio
-        for (Cell c : arbol.inOrderAdding()) {
-            if (criterio.test(c)) {
-                System.out.println(index + ". " + c.toStringWithoutID());
-                encontrados.add(c);
-                index++;
-            }
+        for (Cell c : encontrados) {
+            System.out.println(index + ". " + c.toStringWithoutID());
+            index++;
         }
 
         if (encontrados.isEmpty()) {
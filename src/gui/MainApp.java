@@ -1,5 +1,6 @@
 package gui;
 
+import gui.controller.MainController;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -23,6 +24,9 @@ public class MainApp extends Application {
             System.out.println("No se pudo cargar el icono: " + e.getMessage());
         }
 
+        MainController controller = loader.getController();
+        stage.setOnHidden(event -> controller.cerrar()); // Guarda los cambios pendientes al salir
+
         stage.setScene(scene);
         stage.setMaximized(true);
         stage.show();
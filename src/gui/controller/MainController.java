@@ -1,11 +1,23 @@
 package gui.controller;
 
-import Core.Utils.CSVReaderUtil;
+import Core.Utils.AggregateBST;
 import Core.Utils.Cell;
+import Core.Utils.CellSnapshot;
+import Core.Utils.CellStats;
+import Core.Utils.MeasurementStore;
+import Core.Utils.MutationLog;
 import Core.Utils.NodeCell;
+import Core.Utils.NodeContext;
+import Core.Utils.PersistentAVL;
 import Core.Utils.SelfBalancingBST;
+import Core.Utils.YearIndexes;
+import Core.Utils.YearlyAggregates;
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -116,12 +128,6 @@ public class MainController {
 
     private Tree tree;                                    // Instancia del árbol visual
 
-    /**
-     * Mapa que almacena promedios de temperatura por año Key: año, Value:
-     * temperatura promedio
-     */
-    private Map<Integer, Double> promediosAnuales = new HashMap<>();
-
     private Label infoLabelFlotante;                      // Etiqueta flotante para información
     private Cell nodoEncontrado;
 
@@ -137,7 +143,16 @@ public class MainController {
     private static final double INITIAL_Y = -4940;        // Posición Y inicial del árbol
 
     // ==================== COMPONENTES DEL ÁRBOL ====================
-    private SelfBalancingBST arbolAVL;                    // Árbol AVL con la lógica de negocio
+    private AggregateBST<CellStats> arbolAVL;             // Árbol AVL con la lógica de negocio (y estadísticas de FM)
+    private YearIndexes indicesAnuales;                   // Índices secundarios por año, sincronizados con el árbol
+    private MeasurementStore mediciones;                  // Mediciones anuales en columnas (una por año)
+    private YearlyAggregates promedios;                   // Sumas y cantidades por año, sincronizadas con el árbol
+    private MutationLog registroCambios;                  // Guarda en disco cada inserción y eliminación (null si no se pudo abrir)
+
+    // ==================== HISTORIAL DE CAMBIOS ====================
+    private static final int MAX_VERSIONES = 100;        // Cambios que se pueden deshacer
+    private PersistentAVL versionActual;                  // Copia persistente del contenido actual del árbol
+    private final Deque<PersistentAVL> versionesAnteriores = new ArrayDeque<>(); // Cada versión comparte casi todos sus nodos con la siguiente
 
     private Popup popupInfo;                              // Ventana emergente para tooltips
     private Label popupLabel;                             // Etiqueta dentro del popup
@@ -231,18 +246,43 @@ public class MainController {
 
         generarCamposTemperatura();
 
-        arbolAVL = new SelfBalancingBST(); // Inicializar árbol AVL lógico
+        arbolAVL = new AggregateBST<>(CellStats.FM_MONOID, true); // Árbol AVL lógico con clave (FM, ISO3): admite FM repetidos
+        indicesAnuales = new YearIndexes(1961, 62);
+        arbolAVL.addListener(indicesAnuales); // Se construyen en paralelo al cargar y se actualizan con cada cambio
+        mediciones = new MeasurementStore(62);
+        arbolAVL.addListener(mediciones); // Marca qué filas siguen en el árbol
+        promedios = new YearlyAggregates(1961, 62, mediciones); // Después del almacén: las cargas masivas leen sus columnas
+        arbolAVL.addListener(promedios); // Promedios anuales al día con cada inserción o eliminación
 
         tree = new Tree(treeGroup, arbolAVL); // Inicializar árbol visual
 
-        // Cargar datos iniciales desde CSV
-        ArrayList<Cell> cells = CSVReaderUtil.readCSV("src/Main/data.csv");
-        for (Cell c : cells) {
-            arbolAVL.addNode(c); // Insertar cada celda en el árbol
+        // Cargar datos iniciales desde el snapshot binario o, si no está al día, desde el CSV
+        ArrayList<Cell> cells = CellSnapshot.load("src/Main/data.csv", mediciones);
+        arbolAVL.buildFrom(cells); // Carga masiva: ordena una vez y arma el árbol balanceado
+        CellSnapshot.saveIfStale("src/Main/data.csv", arbolAVL); // Próximos arranques sin parsear el CSV
+        try {
+            // Recupera los cambios de sesiones anteriores y registra los nuevos
+            registroCambios = MutationLog.open("src/Main/data.csv", arbolAVL, mediciones);
+        } catch (IOException e) {
+            System.out.println("No se pudo abrir el registro de cambios: " + e.getMessage());
         }
+        versionActual = PersistentAVL.fromTree(arbolAVL); // Versión inicial para poder deshacer cambios
         tree.drawTree(arbolAVL); // Dibujar árbol inicial
+    }
 
-        inicializarPromedios();
+    /**
+     * Confirma los cambios pendientes del registro y lo cierra. Se llama al
+     * cerrar la ventana.
+     */
+    public void cerrar() {
+        if (registroCambios == null) {
+            return;
+        }
+        try {
+            registroCambios.close();
+        } catch (IOException e) {
+            System.out.println("No se pudo cerrar el registro de cambios: " + e.getMessage());
+        }
     }
 
     // === MÉTODO PARA MOSTRAR LA PESTAÑA ===
@@ -274,7 +314,7 @@ public class MainController {
             }
 
             // Buscar el nodo
-            nodoEncontrado = buscarNodoPorTemperatura(arbolAVL.root, temperatura);
+            nodoEncontrado = buscarNodoPorTemperatura(temperatura);
 
             if (nodoEncontrado != null) {
                 mostrarInformacionNodo(nodoEncontrado);
@@ -310,12 +350,15 @@ public class MainController {
         agregarLineaInformacion("Temperatura promedio:", String.format("%.4f°C", nodo.FM));
 
         try {
-            int nivel = arbolAVL.getNodeLevel(nodo.FM);
-            int balance = arbolAVL.getNodeBalance(nodo.FM);
-            Cell padre = arbolAVL.getParentNode(nodo.FM);
+            NodeContext ubicacion = arbolAVL.describe(nodo); // Nivel, balance y padre en un solo descenso
+            if (ubicacion == null) {
+                agregarLineaInformacion("Info árbol:", "No disponible");
+                return;
+            }
+            Cell padre = (ubicacion.parent != null) ? ubicacion.parent.cell : null;
 
-            agregarLineaInformacion("Nivel en árbol:", String.valueOf(nivel));
-            agregarLineaInformacion("Factor de balance:", String.valueOf(balance));
+            agregarLineaInformacion("Nivel en árbol:", String.valueOf(ubicacion.level));
+            agregarLineaInformacion("Factor de balance:", String.valueOf(ubicacion.balance));
             agregarLineaInformacion("Padre:", padre != null ? padre.ISO3 + " (" + padre.Country + ")" : "Raíz");
 
         } catch (Exception e) {
@@ -405,21 +448,6 @@ public class MainController {
         });
     }
 
-    /**
-     * Calcula y almacena los promedios anuales reales basados en los datos del
-     * árbol Usa los datos reales del CSV en lugar de valores de ejemplo
-     */
-    private void inicializarPromedios() {
-        // Limpiar promedios anteriores
-        promediosAnuales.clear();
-
-        // Calcular promedios para cada año en el rango 1961-2022
-        for (int año = 1961; año <= 2022; año++) {
-            double promedioAnual = calcularPromedioAnual(año);
-            promediosAnuales.put(año, promedioAnual);
-        }
-    }
-
     /**
      * Aplica límites al arrastre del árbol según el nivel de zoom Los límites
      * se interpolan entre zoom mínimo y máximo
@@ -573,14 +601,23 @@ public class MainController {
                 promedio = suma / 62; // Dividir entre el total de años (62)
             }
 
-            // 4. Crear nuevo nodo Cell
+            // 4. Rechazar la clave repetida antes de reservar una fila en el almacén
+            if (arbolAVL.find(promedio, iso) != null) {
+                mostrarMensaje("Ya existe un país " + iso + " con temperatura promedio " + promedio, true);
+                return;
+            }
+
+            // 5. Crear nuevo nodo Cell
             Cell nuevoNodo = new Cell(-1, nombre, iso, promedio);
-            nuevoNodo.F_i = temperaturas; // Asignar el array de temperaturas individuales
+            mediciones.attach(nuevoNodo, temperaturas); // Guardar las temperaturas individuales en el almacén
 
-            // 5. Agregar nodo al árbol AVL y actualizar visualización
-            agregarNodo(nuevoNodo);
+            // 6. Agregar nodo al árbol AVL y actualizar visualización
+            if (!agregarNodo(nuevoNodo)) {
+                mostrarMensaje("No se pudo agregar el país " + iso, true); // la fila queda inactiva en el almacén
+                return;
+            }
 
-            // 6. Limpiar formulario y mostrar mensaje
+            // 7. Limpiar formulario y mostrar mensaje
             limpiarFormulario();
             mostrarMensaje("País agregado exitosamente con " + contadorTemperaturas + " temperaturas ingresadas", false);
 
@@ -592,11 +629,17 @@ public class MainController {
 
     /**
      * Agrega un nodo al árbol y actualiza la visualización
+     *
+     * @return false si ya existía un nodo con la misma clave (FM, ISO3)
      */
-    private void agregarNodo(Cell nuevoNodo) {
-        arbolAVL.addNode(nuevoNodo);          // Agregar al árbol lógico
+    private boolean agregarNodo(Cell nuevoNodo) {
+        if (!arbolAVL.insert(nuevoNodo)) {    // Agregar al árbol lógico
+            return false;
+        }
+        registrarVersion(versionActual.insert(nuevoNodo)); // Solo copia el camino hasta el nuevo nodo
         treeGroup.getChildren().clear();      // Limpiar visualización actual
         tree.drawTree(arbolAVL);              // Redibujar árbol completo
+        return true;
     }
 
     @FXML
@@ -636,14 +679,15 @@ public class MainController {
             }
 
             // Buscar el nodo EXACTO usando tolerancia
-            Cell nodoABorrar = buscarNodoPorTemperatura(arbolAVL.root, temperatura);
+            Cell nodoABorrar = buscarNodoPorTemperatura(temperatura);
             if (nodoABorrar == null) {
                 mostrarMensajeEliminar("No se encontró un nodo con temperatura: " + temperatura, true);
                 return;
             }
 
-            // Eliminar usando el valor EXACTO del nodo encontrado
-            arbolAVL.deleteNode(nodoABorrar.FM);
+            // Eliminar usando la clave EXACTA del nodo encontrado (FM e ISO3, por si hay FM repetidos)
+            arbolAVL.delete(nodoABorrar.FM, nodoABorrar.ISO3);
+            registrarVersion(versionActual.delete(nodoABorrar.FM, nodoABorrar.ISO3));
             actualizarVisualizacion();
 
             mostrarMensajeEliminar("Nodo " + nodoABorrar.ISO3 + " (" + nodoABorrar.FM + ") eliminado correctamente", false);
@@ -654,28 +698,16 @@ public class MainController {
         }
     }
 
-    private Cell buscarNodoPorTemperatura(NodeCell nodo, double temperaturaBuscada) {
-        if (nodo == null) {
-            return null;
-        }
-
-        // Comparar con tolerancia de 0.0001
-        if (Math.abs(nodo.cell.FM - temperaturaBuscada) < 0.0001) {
-            return nodo.cell;
-        }
-
-        if (temperaturaBuscada < nodo.cell.FM) {
-            return buscarNodoPorTemperatura(nodo.left, temperaturaBuscada);
-        } else {
-            return buscarNodoPorTemperatura(nodo.right, temperaturaBuscada);
-        }
+    private Cell buscarNodoPorTemperatura(double temperaturaBuscada) {
+        NodeCell nodo = buscarNodoPorValor(temperaturaBuscada);
+        return (nodo != null) ? nodo.cell : null;
     }
 
     /**
      * Verifica si existe al menos un nodo con la temperatura especificada
      */
     private boolean existeNodoConTemperatura(double temperatura) {
-        return buscarNodoPorTemperatura(arbolAVL.root, temperatura) != null;
+        return buscarNodoPorTemperatura(temperatura) != null;
     }
 
     private void mostrarMensajeEliminar(String mensaje, boolean esError) {
@@ -688,6 +720,67 @@ public class MainController {
         tree.drawTree(arbolAVL);         // Redibujar árbol
     }
 
+    // ==================== DESHACER CAMBIOS ====================
+    /**
+     * Guarda la versión actual en el historial y pasa a la nueva
+     */
+    private void registrarVersion(PersistentAVL nuevaVersion) {
+        versionesAnteriores.push(versionActual);
+        if (versionesAnteriores.size() > MAX_VERSIONES) {
+            versionesAnteriores.removeLast(); // Descartar la versión más antigua
+        }
+        versionActual = nuevaVersion;
+    }
+
+    /**
+     * Deshace la última inserción o eliminación: vuelve a la versión anterior
+     * aplicando al árbol el cambio inverso, así los índices, los promedios y
+     * el registro de cambios lo reciben como un cambio más
+     */
+    @FXML
+    private void onDeshacer() {
+        if (versionesAnteriores.isEmpty()) {
+            mostrarMensajeDebug("No hay cambios para deshacer");
+            return;
+        }
+        PersistentAVL anterior = versionesAnteriores.pop();
+        if (!aplicarCambioInverso(anterior)) {
+            arbolAVL.buildFrom(anterior.inOrderAdding()); // No es un solo cambio: recargar todo
+        }
+        versionActual = anterior;
+        actualizarVisualizacion();
+        mostrarMensajeDebug("Último cambio deshecho (" + versionesAnteriores.size() + " restantes)");
+    }
+
+    /**
+     * Si la versión anterior difiere del árbol en una sola celda, la inserta
+     * o la elimina. Ambas versiones comparten las instancias de Cell, así que
+     * la celda distinta es la primera que no coincide al recorrerlas en orden.
+     *
+     * @return false si la diferencia no es de exactamente una celda
+     */
+    private boolean aplicarCambioInverso(PersistentAVL anterior) {
+        int diferencia = anterior.size() - arbolAVL.size();
+        if (diferencia != 1 && diferencia != -1) {
+            return false;
+        }
+        Iterator<Cell> antes = anterior.iterator();
+        Iterator<Cell> ahora = arbolAVL.iterator();
+        while (antes.hasNext() && ahora.hasNext()) {
+            Cell celdaAntes = antes.next();
+            Cell celdaAhora = ahora.next();
+            if (celdaAntes != celdaAhora) {
+                return (diferencia == 1) ? arbolAVL.insert(celdaAntes) : borrarCelda(celdaAhora);
+            }
+        }
+        // La celda distinta es la última de la versión más grande
+        return (diferencia == 1) ? arbolAVL.insert(antes.next()) : borrarCelda(ahora.next());
+    }
+
+    private boolean borrarCelda(Cell celda) {
+        return arbolAVL.delete(celda.FM, celda.ISO3);
+    }
+
     // ==================== MÉTODOS DE BÚSQUEDA ====================
     /*@FXML
     private void onSearchNode() {
@@ -756,15 +849,9 @@ public class MainController {
     private void realizarBusquedaAnual(int año) {
         try {
             double promedioAnual = calcularPromedioAnual(año);
-            List<Cell> todosNodos = arbolAVL.inOrderAdding();
-            List<Cell> resultados = new ArrayList<>();
-
-            for (Cell cell : todosNodos) {
-                double temperaturaEnAnio = obtenerTemperaturaEnAnio(cell, año);
-                if (temperaturaEnAnio != Double.MIN_VALUE && temperaturaEnAnio > promedioAnual) {
-                    resultados.add(cell); // Agregar a resultados si cumple condición
-                }
-            }
+            // Índice del año: solo se recorren los países con Temp(año) > promedio
+            List<Cell> resultados = indicesAnuales.greaterThan(año, promedioAnual);
+            resultados.sort(arbolAVL.comparator()); // Mostrar en el orden del árbol (FM)
 
             ContextoBusqueda contexto = new ContextoBusqueda("A", año, promedioAnual);
             mostrarResultados(resultados, contexto);
@@ -778,15 +865,9 @@ public class MainController {
     private void realizarBusquedaGlobal(int año) {
         try {
             double promedioGlobal = calcularPromedioGlobal();
-            List<Cell> todosNodos = arbolAVL.inOrderAdding();
-            List<Cell> resultados = new ArrayList<>();
-
-            for (Cell cell : todosNodos) {
-                double temperaturaEnAnio = obtenerTemperaturaEnAnio(cell, año);
-                if (temperaturaEnAnio != Double.MIN_VALUE && temperaturaEnAnio < promedioGlobal) {
-                    resultados.add(cell); // Agregar a resultados si cumple condición
-                }
-            }
+            // Índice del año: solo se recorren los países con Temp(año) < promedio global
+            List<Cell> resultados = indicesAnuales.lessThan(año, promedioGlobal);
+            resultados.sort(arbolAVL.comparator()); // Mostrar en el orden del árbol (FM)
 
             ContextoBusqueda contexto = new ContextoBusqueda("B", año, promedioGlobal);
             mostrarResultados(resultados, contexto);
@@ -799,14 +880,8 @@ public class MainController {
 
     private void realizarBusquedaPorValor(double valor) {
         try {
-            List<Cell> todosNodos = arbolAVL.inOrderAdding();
-            List<Cell> resultados = new ArrayList<>();
-
-            for (Cell cell : todosNodos) {
-                if (cell.FM >= valor) {
-                    resultados.add(cell); // Agregar a resultados si cumple condición
-                }
-            }
+            // El árbol está ordenado por FM: solo se recorren los nodos con FM ≥ valor
+            List<Cell> resultados = arbolAVL.tailQuery(valor, true);
 
             ContextoBusqueda contexto = new ContextoBusqueda("C", null, valor);
             mostrarResultados(resultados, contexto);
@@ -822,7 +897,7 @@ public class MainController {
      * Obtiene la temperatura de una celda para un año específico
      */
     private double obtenerTemperaturaEnAnio(Cell cell, int año) {
-        if (cell.F_i == null || cell.F_i.length == 0) {
+        if (!cell.hasMeasurements()) {
             return Double.MIN_VALUE; // Valor indicador de error
         }
         int añoInicial = 1961;
@@ -830,45 +905,23 @@ public class MainController {
             return Double.MIN_VALUE; // Año fuera de rango
         }
         int indice = año - añoInicial; // Calcular índice en el array
-        return (indice >= 0 && indice < cell.F_i.length) ? cell.F_i[indice] : Double.MIN_VALUE;
+        return (indice >= 0 && indice < cell.measurementCount()) ? cell.measurement(indice) : Double.MIN_VALUE;
     }
 
     /**
-     * Calcula el promedio de temperatura para un año específico
+     * Promedio de temperatura para un año específico, leído de los agregados
+     * que se mantienen con cada cambio del árbol (O(1))
      */
     private double calcularPromedioAnual(int año) {
-        List<Cell> todosNodos = arbolAVL.inOrderAdding();
-        if (todosNodos.isEmpty()) {
-            return 0.0;
-        }
-
-        double suma = 0.0;
-        int count = 0;
-
-        for (Cell cell : todosNodos) {
-            double temperatura = obtenerTemperaturaEnAnio(cell, año);
-            if (temperatura != Double.MIN_VALUE) {
-                suma += temperatura;
-                count++;
-            }
-        }
-        return count > 0 ? suma / count : 0.0; // Evitar división por cero
+        return promedios.yearAverage(año);
     }
 
     /**
-     * Calcula el promedio global de temperaturas
+     * Calcula el promedio global de temperaturas usando el resumen guardado en
+     * la raíz del árbol (O(1), 0.0 si el árbol está vacío)
      */
     private double calcularPromedioGlobal() {
-        List<Cell> todosNodos = arbolAVL.inOrderAdding();
-        if (todosNodos.isEmpty()) {
-            return 0.0;
-        }
-
-        double suma = 0.0;
-        for (Cell cell : todosNodos) {
-            suma += cell.FM; // Sumar promedios generales
-        }
-        return suma / todosNodos.size();
+        return arbolAVL.aggregateAll().average();
     }
 
     /**
@@ -984,69 +1037,11 @@ public class MainController {
     }
 
     /**
-     * Busca un nodo por su valor de temperatura (recorrido recursivo)
+     * Busca el nodo con la temperatura más cercana al valor dentro de la
+     * tolerancia del árbol (un solo descenso)
      */
-    private NodeCell buscarNodoPorValor(NodeCell raiz, double valor) {
-        if (raiz == null) {
-            return null;
-        }
-
-        if (Math.abs(raiz.cell.FM - valor) < 0.0001) { // Comparación con tolerancia
-            return raiz;
-        }
-
-        if (valor < raiz.cell.FM) {
-            return buscarNodoPorValor(raiz.left, valor);
-        } else {
-            return buscarNodoPorValor(raiz.right, valor);
-        }
-    }
-
-    /**
-     * Busca el padre de un nodo recorriendo el árbol desde la raíz
-     */
-    private NodeCell buscarPadre(NodeCell raiz, double valorHijo) {
-        if (raiz == null) {
-            return null;
-        }
-
-        // Verificar si alguno de los hijos es el nodo buscado
-        if (raiz.left != null && Math.abs(raiz.left.cell.FM - valorHijo) < 0.0001) {
-            return raiz; // raiz es el padre del nodo izquierdo
-        }
-
-        if (raiz.right != null && Math.abs(raiz.right.cell.FM - valorHijo) < 0.0001) {
-            return raiz; // raiz es el padre del nodo derecho
-        }
-
-        // Buscar recursivamente en los subárboles
-        if (valorHijo < raiz.cell.FM) {
-            return buscarPadre(raiz.left, valorHijo);
-        } else {
-            return buscarPadre(raiz.right, valorHijo);
-        }
-    }
-
-    /**
-     * Busca el tío de un nodo (hermano del padre)
-     */
-    private NodeCell buscarTio(NodeCell raiz, double valorSobrino) {
-        // 1. Encontrar el padre del nodo
-        NodeCell padre = buscarPadre(raiz, valorSobrino);
-        if (padre == null) {
-            return null; // El nodo es la raíz, no tiene tío
-        }
-        // 2. Encontrar el abuelo (padre del padre)
-        NodeCell abuelo = buscarPadre(raiz, padre.cell.FM);
-        if (abuelo == null) {
-            return null; // El padre es la raíz, no tiene hermanos
-        }
-        // 3. El tío es el otro hijo del abuelo (no el padre)
-        if (abuelo.left == padre) {
-            return abuelo.right; // Tío es el hijo derecho
-        } else {
-            return abuelo.left;  // Tío es el hijo izquierdo
-        }
+    private NodeCell buscarNodoPorValor(double valor) {
+        return arbolAVL.nearest(valor, SelfBalancingBST.KEY_TOLERANCE);
     }
 
     // ==================== MÉTODOS DE VISUALIZACIÓN ====================
@@ -1164,22 +1159,21 @@ public class MainController {
 
         // Información adicional del árbol AVL
         try {
-            sb.append("Nivel: ").append(arbolAVL.getNodeLevel(cell.FM)).append("\n");      // Nivel del nodo en el árbol
-            sb.append("Balance: ").append(arbolAVL.getNodeBalance(cell.FM)).append("\n");  // Factor de balance del nodo
+            NodeContext ubicacion = arbolAVL.describe(cell); // Nivel, balance y parientes en un solo descenso
+            if (ubicacion != null) {
+                sb.append("Nivel: ").append(ubicacion.level).append("\n");      // Nivel del nodo en el árbol
+                sb.append("Balance: ").append(ubicacion.balance).append("\n");  // Factor de balance del nodo
 
-            NodeCell nodoBuscado = buscarNodoPorValor(arbolAVL.root, cell.FM);
-            if (nodoBuscado != null) {
                 // Padre
-                NodeCell padre = buscarPadre(arbolAVL.root, cell.FM);
+                NodeCell padre = ubicacion.parent;
                 sb.append("Padre: ").append(padre != null ? padre.cell.ISO3 : "Raíz").append("\n");
 
-                // Abuelo (necesitamos encontrar al padre primero)
+                // Abuelo y tío (hermano del padre)
                 if (padre != null) {
-                    NodeCell abuelo = buscarPadre(arbolAVL.root, padre.cell.FM);
+                    NodeCell abuelo = ubicacion.grandparent;
                     sb.append("Abuelo: ").append(abuelo != null ? abuelo.cell.ISO3 : "No tiene").append("\n");
 
-                    // Tío (hermano del padre)
-                    NodeCell tio = buscarTio(arbolAVL.root, cell.FM);
+                    NodeCell tio = ubicacion.uncle;
                     sb.append("Tío: ").append(tio != null ? tio.cell.ISO3 : "No tiene").append("\n");
                 } else {
                     sb.append("Abuelo: No tiene\n");
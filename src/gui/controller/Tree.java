@@ -3,6 +3,7 @@ package gui.controller;
 import Core.Utils.BinaryTree;
 import Core.Utils.Cell;
 import Core.Utils.NodeCell;
+import Core.Utils.NodeContext;
 import Core.Utils.NodePosition;
 import Core.Utils.SelfBalancingBST;
 import java.util.ArrayList;
@@ -434,31 +435,21 @@ public class Tree {
 
         // Información del árbol AVL
         try {
-            // Nivel del nodo
-            int nivel = calcularNivelNodo(arbolAVL.root, cell.FM, 1);
-            sb.append("Nivel: ").append(nivel).append("\n");
-
-            // Factor de balance
-            int balance = calcularBalanceNodo(nodo);
-            sb.append("Balance: ").append(balance).append("\n");
+            // Nivel, balance y parientes salen de un solo descenso por la clave
+            NodeContext contexto = arbolAVL.describe(cell);
+            if (contexto == null) {
+                return sb.append("Información del árbol: No disponible").toString();
+            }
+            sb.append("Nivel: ").append(contexto.level).append("\n");
+            sb.append("Balance: ").append(contexto.balance).append("\n");
 
             // Información de parentesco
-            NodeCell padre = buscarPadre(arbolAVL.root, cell.FM);
-            if (padre != null) {
-                sb.append("Padre: ").append(padre.cell.ISO3).append("\n");
-
-                NodeCell abuelo = buscarPadre(arbolAVL.root, padre.cell.FM);
-                if (abuelo != null) {
-                    sb.append("Abuelo: ").append(abuelo.cell.ISO3).append("\n");
-
-                    // Buscar tío (hermano del padre)
-                    NodeCell tio = null;
-                    if (abuelo.left == padre) {
-                        tio = abuelo.right;
-                    } else {
-                        tio = abuelo.left;
-                    }
-                    sb.append("Tío: ").append(tio != null ? tio.cell.ISO3 : "No tiene");
+            if (contexto.parent != null) {
+                sb.append("Padre: ").append(contexto.parent.cell.ISO3).append("\n");
+
+                if (contexto.grandparent != null) {
+                    sb.append("Abuelo: ").append(contexto.grandparent.cell.ISO3).append("\n");
+                    sb.append("Tío: ").append(contexto.uncle != null ? contexto.uncle.cell.ISO3 : "No tiene");
                 } else {
                     sb.append("Abuelo: No tiene\n");
                     sb.append("Tío: No tiene");
@@ -476,54 +467,6 @@ public class Tree {
         return sb.toString();
     }
 
-    private int calcularNivelNodo(NodeCell nodo, double valor, int nivelActual) {
-        if (nodo == null) {
-            return -1; // No encontrado
-        }
-
-        if (Math.abs(nodo.cell.FM - valor) < 0.0001) {
-            return nivelActual;
-        }
-
-        if (valor < nodo.cell.FM) {
-            return calcularNivelNodo(nodo.left, valor, nivelActual + 1);
-        } else {
-            return calcularNivelNodo(nodo.right, valor, nivelActual + 1);
-        }
-    }
-
-    private int calcularBalanceNodo(NodeCell nodo) {
-        if (nodo == null) {
-            return 0;
-        }
-
-        int alturaIzquierda = arbolAVL.getHeight(nodo.left);
-        int alturaDerecha = arbolAVL.getHeight(nodo.right);
-
-        return alturaIzquierda - alturaDerecha;
-    }
-
-    private NodeCell buscarPadre(NodeCell actual, double valorBuscado) {
-        return buscarPadreRecursivo(actual, valorBuscado, null);
-    }
-
-    private NodeCell buscarPadreRecursivo(NodeCell actual, double valorBuscado, NodeCell padre) {
-        if (actual == null) {
-            return null;
-        }
-
-        if (Math.abs(actual.cell.FM - valorBuscado) < 0.0001) {
-            return padre;
-        }
-
-        NodeCell encontrado = buscarPadreRecursivo(actual.left, valorBuscado, actual);
-        if (encontrado != null) {
-            return encontrado;
-        }
-
-        return buscarPadreRecursivo(actual.right, valorBuscado, actual);
-    }
-
     /**
      * Resalta un nodo específico en el árbol
      */